@@ -0,0 +1,162 @@
+package kr.jclab.javautils.asn1streamreader.benchmark;
+
+import org.bouncycastle.asn1.*;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cms.CMSProcessableByteArray;
+import org.bouncycastle.cms.CMSSignedDataGenerator;
+import org.bouncycastle.cms.jcajce.JcaSignerInfoGeneratorBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test inputs for the benchmarks. Each corpus is a concatenation of top-level elements.
+ */
+public enum Asn1Corpus {
+    CERTIFICATE_CHAIN {
+        @Override
+        void build(Builder builder) throws Exception {
+            KeyPair rootKey = generateKeyPair();
+            KeyPair intermediateKey = generateKeyPair();
+            KeyPair leafKey = generateKeyPair();
+            X509CertificateHolder root = certificate("CN=Root", rootKey.getPublic(), "CN=Root", rootKey.getPrivate(), 1);
+            X509CertificateHolder intermediate = certificate("CN=Intermediate", intermediateKey.getPublic(), "CN=Root", rootKey.getPrivate(), 2);
+            X509CertificateHolder leaf = certificate("CN=Leaf", leafKey.getPublic(), "CN=Intermediate", intermediateKey.getPrivate(), 3);
+            for (int i = 0; i < 100; i++) {
+                builder.add(leaf.getEncoded());
+                builder.add(intermediate.getEncoded());
+                builder.add(root.getEncoded());
+            }
+        }
+    },
+    CMS_SIGNED_DATA {
+        @Override
+        void build(Builder builder) throws Exception {
+            KeyPair keyPair = generateKeyPair();
+            X509CertificateHolder certificate = certificate("CN=Signer", keyPair.getPublic(), "CN=Signer", keyPair.getPrivate(), 1);
+            ContentSigner signer = new JcaContentSignerBuilder("SHA256withECDSA").build(keyPair.getPrivate());
+            CMSSignedDataGenerator generator = new CMSSignedDataGenerator();
+            generator.addSignerInfoGenerator(
+                    new JcaSignerInfoGeneratorBuilder(new JcaDigestCalculatorProviderBuilder().build())
+                            .build(signer, certificate)
+            );
+            List<X509CertificateHolder> certificates = new ArrayList<>();
+            certificates.add(certificate);
+            generator.addCertificates(new JcaCertStore(certificates));
+            byte[] content = new byte[256 * 1024];
+            new Random(1).nextBytes(content);
+            byte[] signedData = generator.generate(new CMSProcessableByteArray(content), true).getEncoded();
+            for (int i = 0; i < 8; i++) {
+                builder.add(signedData);
+            }
+        }
+    },
+    LARGE_OCTET_STRING {
+        @Override
+        void build(Builder builder) throws Exception {
+            byte[] content = new byte[4 * 1024 * 1024];
+            new Random(2).nextBytes(content);
+            builder.add(new DEROctetString(content).getEncoded(ASN1Encoding.DER));
+        }
+    },
+    DEEP_BER_NESTING {
+        @Override
+        void build(Builder builder) throws Exception {
+            ByteArrayOutputStream element = new ByteArrayOutputStream();
+            for (int depth = 0; depth < 64; depth++) {
+                element.write(0x30);
+                element.write(0x80);
+            }
+            element.write(new ASN1Integer(42).getEncoded(ASN1Encoding.DER));
+            for (int depth = 0; depth < 64; depth++) {
+                element.write(0x00);
+                element.write(0x00);
+            }
+            byte[] encoded = element.toByteArray();
+            for (int i = 0; i < 100; i++) {
+                builder.add(encoded);
+            }
+        }
+    },
+    TINY_RECORDS {
+        @Override
+        void build(Builder builder) throws Exception {
+            for (int i = 0; i < 10000; i++) {
+                if ((i & 1) == 0) {
+                    builder.add(new ASN1Integer(i).getEncoded(ASN1Encoding.DER));
+                } else {
+                    builder.add(new DERUTF8String("record-" + i).getEncoded(ASN1Encoding.DER));
+                }
+            }
+        }
+    };
+
+    abstract void build(Builder builder) throws Exception;
+
+    public Data generate() throws Exception {
+        Builder builder = new Builder();
+        this.build(builder);
+        return new Data(builder.output.toByteArray(), builder.elementCount);
+    }
+
+    public static final class Data {
+        private final byte[] bytes;
+        private final int elementCount;
+
+        Data(byte[] bytes, int elementCount) {
+            this.bytes = bytes;
+            this.elementCount = elementCount;
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        public int getElementCount() {
+            return elementCount;
+        }
+    }
+
+    static final class Builder {
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private int elementCount = 0;
+
+        void add(byte[] element) throws IOException {
+            this.output.write(element);
+            this.elementCount++;
+        }
+    }
+
+    private static KeyPair generateKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        return generator.generateKeyPair();
+    }
+
+    private static X509CertificateHolder certificate(String subject, PublicKey publicKey, String issuer, PrivateKey issuerKey, long serial) throws Exception {
+        long now = System.currentTimeMillis();
+        return new JcaX509v3CertificateBuilder(
+                new X500Name(issuer),
+                BigInteger.valueOf(serial),
+                new Date(now),
+                new Date(now + 365L * 24 * 3600 * 1000),
+                new X500Name(subject),
+                publicKey
+        ).build(new JcaContentSignerBuilder("SHA256withECDSA").build(issuerKey));
+    }
+}
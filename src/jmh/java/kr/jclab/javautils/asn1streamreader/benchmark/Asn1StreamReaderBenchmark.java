@@ -0,0 +1,121 @@
+package kr.jclab.javautils.asn1streamreader.benchmark;
+
+import kr.jclab.javautils.asn1streamreader.*;
+import kr.jclab.javautils.asn1streamreader.decoder.BouncyCastleObjectDecoder;
+import kr.jclab.javautils.asn1streamreader.decoder.LightweightObjectDecoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a whole corpus per operation in each input mode of Asn1StreamReader.
+ * Run with the GC profiler (configured in build.gradle) to get the allocation rate;
+ * the "bytes" and "elements" counters give the throughput in bytes/s and elements/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Asn1StreamReaderBenchmark {
+    @Param({"CERTIFICATE_CHAIN", "CMS_SIGNED_DATA", "LARGE_OCTET_STRING", "DEEP_BER_NESTING", "TINY_RECORDS"})
+    public Asn1Corpus corpus;
+
+    @Param({"8192"})
+    public int chunkSize;
+
+    @Param({"false", "true"})
+    public boolean decodeObject;
+
+    @Param({"BOUNCY_CASTLE", "LIGHTWEIGHT"})
+    public String decoder;
+
+    private byte[] data;
+    private int elementCount;
+    private Asn1ObjectDecoder objectDecoder;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Throughput {
+        public long bytes;
+        public long elements;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.bytes = 0;
+            this.elements = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Asn1Corpus.Data generated = this.corpus.generate();
+        this.data = generated.getBytes();
+        this.elementCount = generated.getElementCount();
+        this.objectDecoder = "LIGHTWEIGHT".equals(this.decoder)
+                ? new LightweightObjectDecoder(new BouncyCastleObjectDecoder())
+                : new BouncyCastleObjectDecoder();
+    }
+
+    private Asn1ReaderOptions options() {
+        return Asn1ReaderOptions.builder()
+                .objectDecoder(this.objectDecoder)
+                .build();
+    }
+
+    private void consume(Asn1ReadResult result, Blackhole blackhole, Throughput throughput) {
+        if (result.getReadType() != Asn1ReadResult.ReadType.OBJECT) {
+            return;
+        }
+        throughput.elements++;
+        if (this.decodeObject) {
+            blackhole.consume(result.getObject());
+        } else {
+            blackhole.consume(result.getTagNumber());
+        }
+    }
+
+    @Benchmark
+    public void callbackInputStream(Blackhole blackhole, Throughput throughput) throws IOException {
+        CallbackInputStream inputStream = new CallbackInputStream();
+        Asn1StreamReader reader = new Asn1StreamReader(inputStream, Asn1ReaderOptions.builder()
+                .objectDecoder(this.objectDecoder)
+                .readCallback(result -> consume(result, blackhole, throughput))
+                .build());
+        for (int offset = 0; offset < this.data.length; offset += this.chunkSize) {
+            inputStream.write(this.data, offset, Math.min(this.chunkSize, this.data.length - offset));
+        }
+        inputStream.close();
+        reader.close();
+        throughput.bytes += this.data.length;
+    }
+
+    @Benchmark
+    public void queueInputStream(Blackhole blackhole, Throughput throughput) throws Exception {
+        QueueInputStream inputStream = new QueueInputStream();
+        Asn1StreamReader reader = new Asn1StreamReader(inputStream, this.options());
+        for (int offset = 0; offset < this.data.length; offset += this.chunkSize) {
+            inputStream.put(this.data, offset, Math.min(this.chunkSize, this.data.length - offset));
+            Asn1ReadResult result;
+            while ((result = reader.readObject(true)) != null) {
+                consume(result, blackhole, throughput);
+            }
+        }
+        reader.close();
+        throughput.bytes += this.data.length;
+    }
+
+    @Benchmark
+    public void blockingInputStream(Blackhole blackhole, Throughput throughput) throws IOException {
+        Asn1StreamReader reader = new Asn1StreamReader(new ByteArrayInputStream(this.data), this.options());
+        for (int i = 0; i < this.elementCount; i++) {
+            consume(reader.readObject(false), blackhole, throughput);
+        }
+        reader.close();
+        throughput.bytes += this.data.length;
+    }
+}
@@ -0,0 +1,12 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface Asn1BatchReadCallback {
+    /**
+     * Receives all results parsed from one input chunk. The list is reused by the reader
+     * and must not be kept after this call returns.
+     */
+    void onData(List<Asn1ReadResult> results);
+}
@@ -0,0 +1,156 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import kr.jclab.javautils.asn1streamreader.internal.ByteBufferReadBuffer;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scans a file of concatenated DER/BER elements by mapping it in windows.
+ *
+ * With zeroCopy (default when no options are given), results are read-only slices of the mapped windows
+ * and offsets are file positions. Only elements that cross a window boundary are copied.
+ */
+public class Asn1FileReader implements Closeable {
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+    public static final int SCAN_BATCH_SIZE = 1024;
+
+    private final FileChannel channel;
+    private final boolean closeChannel;
+    private final int windowSize;
+    private final Asn1ReaderOptions options;
+    private final Asn1StreamReader reader;
+    private final ArrayDeque<Asn1ReadResult> pending = new ArrayDeque<>();
+
+    private long windowPosition = 0;
+    private ByteBufferReadBuffer window = null;
+    private boolean eof = false;
+
+    private static Asn1ReaderOptions defaultOptions(Asn1ReaderOptions options) {
+        if(options != null) {
+            return options;
+        }
+        return Asn1ReaderOptions.builder().zeroCopy(true).build();
+    }
+
+    public Asn1FileReader(Path path) throws IOException {
+        this(path, null);
+    }
+
+    public Asn1FileReader(Path path, Asn1ReaderOptions options) throws IOException {
+        this(path, options, DEFAULT_WINDOW_SIZE);
+    }
+
+    public Asn1FileReader(Path path, Asn1ReaderOptions options, int windowSize) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ), options, windowSize, true);
+    }
+
+    /**
+     * The channel is read from its start and is not closed by this reader.
+     */
+    public Asn1FileReader(FileChannel channel, Asn1ReaderOptions options, int windowSize) {
+        this(channel, options, windowSize, false);
+    }
+
+    private Asn1FileReader(FileChannel channel, Asn1ReaderOptions options, int windowSize, boolean closeChannel) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+        this.windowSize = windowSize;
+        this.options = defaultOptions(options);
+        this.reader = new Asn1StreamReader(this.options);
+    }
+
+    private boolean nextWindow() throws IOException {
+        long size = this.channel.size();
+        if (this.windowPosition >= size) {
+            return false;
+        }
+        long length = Math.min(this.windowSize, size - this.windowPosition);
+        MappedByteBuffer mapped = this.channel.map(FileChannel.MapMode.READ_ONLY, this.windowPosition, length);
+        this.windowPosition += length;
+        this.window = new ByteBufferReadBuffer(mapped);
+        return true;
+    }
+
+    private boolean fillPending() throws IOException {
+        while (this.pending.isEmpty()) {
+            if (this.eof) {
+                return false;
+            }
+            if (this.window == null || this.window.available() == 0) {
+                if (!this.nextWindow()) {
+                    this.window = null;
+                    this.eof = true;
+                    if (this.reader.isParsing()) {
+                        throw new EOFException("Truncated element at end of file");
+                    }
+                    this.pending.add(new Asn1ReadResult(null, Asn1ReadResult.ReadType.EOF, null));
+                    return true;
+                }
+            }
+            List<Asn1ReadResult> readResults = this.reader.readFrom(this.window);
+            this.pending.addAll(readResults);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the next result, an EOF result at the end of the file, and null after that.
+     */
+    public Asn1ReadResult readObject() throws IOException {
+        if (this.options.hasReadCallback()) {
+            throw new IOException("Not support on callback mode");
+        }
+        if (!this.fillPending()) {
+            return null;
+        }
+        return this.pending.poll();
+    }
+
+    /**
+     * Passes every result of the remaining file, followed by an EOF result, to the read callback.
+     * A batch read callback gets the results in batches of at most SCAN_BATCH_SIZE.
+     */
+    public void scan() throws IOException {
+        Asn1BatchReadCallback batchReadCallback = this.options.getBatchReadCallback();
+        Asn1ReadCallback readCallback = this.options.getReadCallback();
+        if (batchReadCallback != null) {
+            List<Asn1ReadResult> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+            while (this.fillPending()) {
+                while (!this.pending.isEmpty() && batch.size() < SCAN_BATCH_SIZE) {
+                    batch.add(this.pending.poll());
+                }
+                if (batch.size() >= SCAN_BATCH_SIZE || this.eof) {
+                    batchReadCallback.onData(batch);
+                    batch.clear();
+                }
+            }
+        } else if (readCallback != null) {
+            while (this.fillPending()) {
+                readCallback.onData(this.pending.poll());
+            }
+        } else {
+            throw new IOException("Read callback is not set");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.window = null;
+        this.pending.clear();
+        if (this.closeChannel) {
+            this.channel.close();
+        }
+    }
+}
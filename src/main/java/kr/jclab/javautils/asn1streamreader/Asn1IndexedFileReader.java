@@ -0,0 +1,102 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads single elements of a file at the positions recorded in an Asn1OffsetIndex, with one positional read each.
+ */
+public class Asn1IndexedFileReader implements Closeable {
+    private static final long MAX_ELEMENT_SIZE = Integer.MAX_VALUE - 8;
+
+    private final FileChannel channel;
+    private final Asn1OffsetIndex index;
+    private final Asn1ObjectDecoder objectDecoder;
+
+    public Asn1IndexedFileReader(Path path, Asn1OffsetIndex index) throws IOException {
+        this(path, index, true);
+    }
+
+    /**
+     * @param decodeObject whether getObject() of the returned results decodes the element (lazily)
+     */
+    public Asn1IndexedFileReader(Path path, Asn1OffsetIndex index, boolean decodeObject) throws IOException {
+        this(path, index, decodeObject ? Asn1ReaderOptions.defaultObjectDecoder() : null);
+    }
+
+    /**
+     * @param objectDecoder decoder that getObject() of the returned results uses, or null to not decode
+     */
+    public Asn1IndexedFileReader(Path path, Asn1OffsetIndex index, Asn1ObjectDecoder objectDecoder) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.index = index;
+        this.objectDecoder = objectDecoder;
+        if (this.channel.size() != index.getSourceLength()) {
+            this.channel.close();
+            throw new IOException("Index was built for a file of " + index.getSourceLength() + " bytes, but the file has " + this.channel.size());
+        }
+    }
+
+    public Asn1OffsetIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Reads the n-th top-level element.
+     */
+    public Asn1ReadResult readElement(int element) throws IOException {
+        return this.readEntry(this.index.getElementEntry(element));
+    }
+
+    public Asn1ReadResult readChild(int element, int child) throws IOException {
+        return this.readEntry(this.index.getChildEntry(element, child));
+    }
+
+    public Asn1ReadResult readEntry(int entry) throws IOException {
+        long offset = this.index.getOffset(entry);
+        long length = this.index.getLength(entry);
+        int headerLength = this.index.getHeaderLength(entry);
+        if (length < 2 || headerLength < 2 || headerLength > length) {
+            throw new IOException("Index entry " + entry + " at position " + offset + " is not an element (length " + length + ", header " + headerLength + ")");
+        }
+        if (length > MAX_ELEMENT_SIZE) {
+            throw new Asn1LimitExceededException("Element size " + length + " exceeds limit " + MAX_ELEMENT_SIZE, offset);
+        }
+        byte[] buffer = new byte[(int) length];
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        while (byteBuffer.hasRemaining()) {
+            if (this.channel.read(byteBuffer, offset + byteBuffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        int lengthPosition = 1;
+        if ((buffer[0] & 0x1f) == 0x1f) {
+            while ((lengthPosition < headerLength - 1) && (buffer[lengthPosition++] & 0x80) != 0) {
+            }
+        }
+        boolean indefinite = (buffer[lengthPosition] & 0xff) == 0x80;
+        return new Asn1ReadResult(
+                buffer,
+                null,
+                Asn1ReadResult.ReadType.OBJECT,
+                null,
+                this.objectDecoder,
+                offset,
+                this.index.getTagClass(entry),
+                this.index.isTagConstructed(entry),
+                this.index.getTagNumber(entry),
+                headerLength,
+                indefinite ? -1 : (length - headerLength)
+        );
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,21 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import java.io.IOException;
+
+public class Asn1LimitExceededException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final long offset;
+
+    public Asn1LimitExceededException(String message, long offset) {
+        super(message + " at position " + offset);
+        this.offset = offset;
+    }
+
+    /**
+     * Stream offset of the element that was rejected.
+     */
+    public long getOffset() {
+        return offset;
+    }
+}
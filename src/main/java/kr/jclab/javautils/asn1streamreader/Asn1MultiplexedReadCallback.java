@@ -0,0 +1,6 @@
+package kr.jclab.javautils.asn1streamreader;
+
+@FunctionalInterface
+public interface Asn1MultiplexedReadCallback<K> {
+    void onData(K key, Asn1ReadResult result);
+}
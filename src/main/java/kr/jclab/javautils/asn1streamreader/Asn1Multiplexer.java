@@ -0,0 +1,161 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import kr.jclab.javautils.asn1streamreader.internal.ByteBufferReadBuffer;
+import kr.jclab.javautils.asn1streamreader.internal.GrowableByteArrayPool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Parses many connections with a single parser, e.g. from one selector or event loop thread.
+ *
+ * A connection between elements only keeps its key and stream position. Parser frames and element
+ * buffers are borrowed from shared pools while an element is incomplete and returned once it is done.
+ * Results of all connections go to one callback together with the connection key.
+ * Not thread-safe: all calls must come from one thread at a time.
+ */
+public class Asn1Multiplexer<K> {
+    public static final int DEFAULT_MAX_POOLED_BUFFERS = 256;
+
+    public static final class Connection<K> {
+        private final K key;
+        private long position = 0;
+        private Asn1StreamReader.ParseState partialState = null;
+        private boolean closed = false;
+
+        private Connection(K key) {
+            this.key = key;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        /**
+         * Number of bytes fed to this connection so far.
+         */
+        public long getPosition() {
+            return (partialState != null) ? partialState.streamPosition : position;
+        }
+
+        /**
+         * Whether the connection is between elements and holds no parser state.
+         */
+        public boolean isIdle() {
+            return partialState == null;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+
+    private final Asn1StreamReader parser;
+    private final Asn1MultiplexedReadCallback<K> callback;
+    private final ArrayDeque<Asn1StreamReader.ParseState> parseStatePool = new ArrayDeque<>();
+    private final int maxPooledStates;
+    private Asn1StreamReader.ParseState spareState = new Asn1StreamReader.ParseState();
+
+    public Asn1Multiplexer(Asn1ReaderOptions options, Asn1MultiplexedReadCallback<K> callback) {
+        this(options, callback, DEFAULT_MAX_POOLED_BUFFERS);
+    }
+
+    /**
+     * @param maxPooledBuffers idle element buffers kept per size class, and idle parser frame sets kept
+     */
+    public Asn1Multiplexer(Asn1ReaderOptions options, Asn1MultiplexedReadCallback<K> callback, int maxPooledBuffers) {
+        if (options != null && options.hasReadCallback()) {
+            throw new IllegalArgumentException("options must not have a read callback");
+        }
+        this.parser = new Asn1StreamReader(options, new GrowableByteArrayPool(
+                GrowableByteArrayPool.DEFAULT_INITIAL_CAPACITY,
+                maxPooledBuffers,
+                GrowableByteArrayPool.DEFAULT_MAX_RETAINED_CAPACITY
+        ));
+        this.callback = callback;
+        this.maxPooledStates = maxPooledBuffers;
+    }
+
+    public Connection<K> open(K key) {
+        return new Connection<>(key);
+    }
+
+    /**
+     * Parses the bytes received on a connection. With zeroCopy, results may be slices of data.
+     * On a parse error the connection is closed and the exception is thrown.
+     */
+    public void feed(Connection<K> connection, ByteBuffer data) throws IOException {
+        if (connection.closed) {
+            throw new IOException("Already closed connection");
+        }
+        if (!data.hasRemaining()) {
+            return;
+        }
+        Asn1StreamReader.ParseState state = this.attach(connection);
+        ByteBufferReadBuffer readBuffer = new ByteBufferReadBuffer(data);
+        try {
+            while (readBuffer.available() > 0) {
+                List<Asn1ReadResult> readResults = this.parser.readFrom(readBuffer);
+                for (Asn1ReadResult item : readResults) {
+                    this.callback.onData(connection.key, item);
+                }
+            }
+        } catch (IOException e) {
+            this.parser.discardParseState();
+            this.parser.clearLastException();
+            this.detach(connection, state);
+            connection.closed = true;
+            throw e;
+        }
+        this.detach(connection, state);
+    }
+
+    public void feed(Connection<K> connection, byte[] data, int offset, int length) throws IOException {
+        this.feed(connection, ByteBuffer.wrap(data, offset, length));
+    }
+
+    /**
+     * Ends a connection: its borrowed state is returned and an EOF result is passed to the callback.
+     */
+    public void close(Connection<K> connection) {
+        if (connection.closed) {
+            return;
+        }
+        Asn1StreamReader.ParseState state = this.attach(connection);
+        this.parser.discardParseState();
+        this.detach(connection, state);
+        connection.closed = true;
+        this.callback.onData(connection.key, new Asn1ReadResult(null, Asn1ReadResult.ReadType.EOF, null));
+    }
+
+    private Asn1StreamReader.ParseState attach(Connection<K> connection) {
+        Asn1StreamReader.ParseState state = connection.partialState;
+        if (state == null) {
+            state = this.spareState;
+            state.depth = 0;
+            state.streamPosition = connection.position;
+        }
+        connection.partialState = null;
+        this.parser.exchangeParseState(state);
+        return state;
+    }
+
+    private void detach(Connection<K> connection, Asn1StreamReader.ParseState state) {
+        // state now holds the parser's previous frames; swap the connection's frames back out
+        this.parser.exchangeParseState(state);
+        if (state.depth > 0) {
+            connection.partialState = state;
+            if (state == this.spareState) {
+                Asn1StreamReader.ParseState spare = this.parseStatePool.pollLast();
+                this.spareState = (spare != null) ? spare : new Asn1StreamReader.ParseState();
+            }
+        } else {
+            connection.position = state.streamPosition;
+            if (state != this.spareState && this.parseStatePool.size() < this.maxPooledStates) {
+                this.parseStatePool.addLast(state);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import java.io.IOException;
+
+/**
+ * Produces the object of an OBJECT result on its first getObject() call.
+ *
+ * @see kr.jclab.javautils.asn1streamreader.decoder.LightweightObjectDecoder
+ * @see kr.jclab.javautils.asn1streamreader.decoder.BouncyCastleObjectDecoder
+ */
+@FunctionalInterface
+public interface Asn1ObjectDecoder {
+    /**
+     * @param result OBJECT result with its raw bytes, tag and lengths
+     * @return the decoded object, or null if the decoder does not handle the element
+     */
+    Object decode(Asn1ReadResult result) throws IOException;
+}
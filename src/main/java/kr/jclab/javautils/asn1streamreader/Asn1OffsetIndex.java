@@ -0,0 +1,246 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import kr.jclab.javautils.asn1streamreader.object.Asn1SequenceResult;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Offsets, lengths and tags of the elements of a file, kept in flat arrays.
+ *
+ * Entries are in file order. Top-level elements have depth 0; when built with children,
+ * each top-level element is followed by the entries of its direct children (depth 1).
+ */
+public class Asn1OffsetIndex {
+    private static final int MAGIC = 0x41314958; // "A1IX"
+    private static final int VERSION = 1;
+
+    private final long sourceLength;
+    private int entryCount = 0;
+    private long[] offsets;
+    private long[] lengths;
+    private int[] tagNumbers;
+    private byte[] tagFlags;
+    private byte[] headerLengths;
+    private byte[] depths;
+
+    private int elementCount = 0;
+    private int[] elementEntries;
+
+    private Asn1OffsetIndex(long sourceLength, int capacity) {
+        this.sourceLength = sourceLength;
+        this.offsets = new long[capacity];
+        this.lengths = new long[capacity];
+        this.tagNumbers = new int[capacity];
+        this.tagFlags = new byte[capacity];
+        this.headerLengths = new byte[capacity];
+        this.depths = new byte[capacity];
+        this.elementEntries = new int[capacity];
+    }
+
+    /**
+     * Scans the file once and indexes its top-level elements.
+     *
+     * @param includeChildren also index the direct children of each top-level element, which must then be constructed
+     */
+    public static Asn1OffsetIndex build(Path path, boolean includeChildren) throws IOException {
+        Asn1ReaderOptions options = Asn1ReaderOptions.builder()
+                .stripSequence(includeChildren)
+                .zeroCopy(true)
+                .decodeObject(false)
+                .build();
+        Asn1OffsetIndex index = new Asn1OffsetIndex(Files.size(path), 64);
+        try (Asn1FileReader fileReader = new Asn1FileReader(path, options)) {
+            Asn1ReadResult result;
+            int openEntry = -1;
+            while ((result = fileReader.readObject()) != null) {
+                switch (result.getReadType()) {
+                    case BEGIN_SEQUENCE:
+                        openEntry = index.add(result, 0, -1);
+                        break;
+                    case END_SEQUENCE:
+                        index.lengths[openEntry] = ((Asn1SequenceResult) result.getObject()).getSize();
+                        openEntry = -1;
+                        break;
+                    case OBJECT:
+                        index.add(result, includeChildren ? 1 : 0, elementLength(result));
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return index;
+    }
+
+    private static long elementLength(Asn1ReadResult result) {
+        if (!result.isIndefiniteLength()) {
+            return result.getHeaderLength() + result.getContentLength();
+        }
+        ByteBuffer raw = result.getRawByteBuffer();
+        return raw.remaining();
+    }
+
+    private int add(Asn1ReadResult result, int depth, long length) {
+        return this.add(result.getOffset(), length, result.getTagClass(), result.isTagConstructed(), result.getTagNumber(), result.getHeaderLength(), depth);
+    }
+
+    private int add(long offset, long length, int tagClass, boolean tagConstructed, int tagNumber, int headerLength, int depth) {
+        if (this.entryCount == this.offsets.length) {
+            int capacity = this.offsets.length * 2;
+            this.offsets = Arrays.copyOf(this.offsets, capacity);
+            this.lengths = Arrays.copyOf(this.lengths, capacity);
+            this.tagNumbers = Arrays.copyOf(this.tagNumbers, capacity);
+            this.tagFlags = Arrays.copyOf(this.tagFlags, capacity);
+            this.headerLengths = Arrays.copyOf(this.headerLengths, capacity);
+            this.depths = Arrays.copyOf(this.depths, capacity);
+        }
+        int entry = this.entryCount++;
+        this.offsets[entry] = offset;
+        this.lengths[entry] = length;
+        this.tagNumbers[entry] = tagNumber;
+        this.tagFlags[entry] = (byte) ((tagClass << 1) | (tagConstructed ? 1 : 0));
+        this.headerLengths[entry] = (byte) headerLength;
+        this.depths[entry] = (byte) depth;
+        if (depth == 0) {
+            if (this.elementCount == this.elementEntries.length) {
+                this.elementEntries = Arrays.copyOf(this.elementEntries, this.elementCount * 2);
+            }
+            this.elementEntries[this.elementCount++] = entry;
+        }
+        return entry;
+    }
+
+    public void save(OutputStream out) throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+        dataOut.writeInt(MAGIC);
+        dataOut.writeInt(VERSION);
+        dataOut.writeLong(this.sourceLength);
+        dataOut.writeInt(this.entryCount);
+        for (int i = 0; i < this.entryCount; i++) {
+            dataOut.writeLong(this.offsets[i]);
+            dataOut.writeLong(this.lengths[i]);
+            dataOut.writeInt(this.tagNumbers[i]);
+            dataOut.writeByte(this.tagFlags[i]);
+            dataOut.writeByte(this.headerLengths[i]);
+            dataOut.writeByte(this.depths[i]);
+        }
+        dataOut.flush();
+    }
+
+    public static Asn1OffsetIndex load(InputStream in) throws IOException {
+        DataInputStream dataIn = new DataInputStream(new BufferedInputStream(in));
+        if (dataIn.readInt() != MAGIC) {
+            throw new IOException("Not an offset index");
+        }
+        int version = dataIn.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported offset index version " + version);
+        }
+        long sourceLength = dataIn.readLong();
+        int entryCount = dataIn.readInt();
+        Asn1OffsetIndex index = new Asn1OffsetIndex(sourceLength, Math.max(entryCount, 1));
+        for (int i = 0; i < entryCount; i++) {
+            long offset = dataIn.readLong();
+            long length = dataIn.readLong();
+            int tagNumber = dataIn.readInt();
+            int flags = dataIn.readByte();
+            int headerLength = dataIn.readByte() & 0xff;
+            int depth = dataIn.readByte();
+            index.add(offset, length, (flags >>> 1) & 0x3, (flags & 1) != 0, tagNumber, headerLength, depth);
+        }
+        return index;
+    }
+
+    /**
+     * Length of the file the index was built from, to detect a stale index.
+     */
+    public long getSourceLength() {
+        return sourceLength;
+    }
+
+    /**
+     * Number of top-level elements.
+     */
+    public int size() {
+        return elementCount;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Entry of the n-th top-level element.
+     */
+    public int getElementEntry(int element) {
+        if (element < 0 || element >= this.elementCount) {
+            throw new IndexOutOfBoundsException("element " + element);
+        }
+        return this.elementEntries[element];
+    }
+
+    public int getChildCount(int element) {
+        int entry = this.getElementEntry(element);
+        int end = (element + 1 < this.elementCount) ? this.elementEntries[element + 1] : this.entryCount;
+        return end - entry - 1;
+    }
+
+    public int getChildEntry(int element, int child) {
+        if (child < 0 || child >= this.getChildCount(element)) {
+            throw new IndexOutOfBoundsException("child " + child);
+        }
+        return this.elementEntries[element] + 1 + child;
+    }
+
+    /**
+     * Entries with the given tag, at any depth.
+     */
+    public int[] findByTag(int tagClass, int tagNumber) {
+        int[] found = new int[8];
+        int count = 0;
+        for (int i = 0; i < this.entryCount; i++) {
+            if (this.tagNumbers[i] == tagNumber && this.getTagClass(i) == tagClass) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = i;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    public long getOffset(int entry) {
+        return offsets[entry];
+    }
+
+    /**
+     * Length of the whole element, header included.
+     */
+    public long getLength(int entry) {
+        return lengths[entry];
+    }
+
+    public int getHeaderLength(int entry) {
+        return headerLengths[entry] & 0xff;
+    }
+
+    public int getTagClass(int entry) {
+        return (tagFlags[entry] >>> 1) & 0x3;
+    }
+
+    public boolean isTagConstructed(int entry) {
+        return (tagFlags[entry] & 1) != 0;
+    }
+
+    public int getTagNumber(int entry) {
+        return tagNumbers[entry];
+    }
+
+    public int getDepth(int entry) {
+        return depths[entry];
+    }
+}
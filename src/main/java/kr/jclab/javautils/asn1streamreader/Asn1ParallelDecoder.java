@@ -0,0 +1,173 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import kr.jclab.javautils.asn1streamreader.internal.ByteBufferReadBuffer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Finds element boundaries in one sequential pass and decodes the elements on an executor.
+ *
+ * The sequential pass only walks the headers; with zeroCopy (default when no options are given)
+ * the content is not copied. Decoded results are passed to the callback on the calling thread,
+ * in input order or in completion order. The options must have decodeObject enabled and no read callback.
+ */
+public class Asn1ParallelDecoder {
+    private interface ResultSource {
+        Asn1ReadResult next() throws IOException;
+    }
+
+    private final Executor executor;
+    private final boolean ordered;
+    private final int maxInFlight;
+
+    public Asn1ParallelDecoder() {
+        this(ForkJoinPool.commonPool(), true);
+    }
+
+    public Asn1ParallelDecoder(Executor executor, boolean ordered) {
+        this(executor, ordered, 1024);
+    }
+
+    /**
+     * @param maxInFlight maximum number of elements that are found but not yet passed to the callback
+     */
+    public Asn1ParallelDecoder(Executor executor, boolean ordered, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.executor = executor;
+        this.ordered = ordered;
+        this.maxInFlight = maxInFlight;
+    }
+
+    private static Asn1ReaderOptions defaultOptions(Asn1ReaderOptions options) {
+        if(options != null) {
+            if (options.hasReadCallback() || !options.isDecodeObject()) {
+                throw new IllegalArgumentException("options must enable decodeObject and have no read callback");
+            }
+            return options;
+        }
+        return Asn1ReaderOptions.builder().zeroCopy(true).build();
+    }
+
+    public void decode(Path path, Asn1ReaderOptions options, Asn1ReadCallback callback) throws IOException {
+        try (Asn1FileReader fileReader = new Asn1FileReader(path, defaultOptions(options))) {
+            this.decode(fileReader::readObject, callback);
+        }
+    }
+
+    public void decode(ByteBuffer buffer, Asn1ReaderOptions options, Asn1ReadCallback callback) throws IOException {
+        final Asn1StreamReader reader = new Asn1StreamReader(defaultOptions(options));
+        final ByteBufferReadBuffer readBuffer = new ByteBufferReadBuffer(buffer.duplicate());
+        final ArrayDeque<Asn1ReadResult> pending = new ArrayDeque<>();
+        final boolean[] eof = new boolean[1];
+        this.decode(() -> {
+            while (pending.isEmpty() && readBuffer.available() > 0) {
+                pending.addAll(reader.readFrom(readBuffer));
+            }
+            if (pending.isEmpty() && !eof[0]) {
+                eof[0] = true;
+                if (reader.isParsing()) {
+                    throw new EOFException("Truncated element at end of buffer");
+                }
+                return new Asn1ReadResult(null, Asn1ReadResult.ReadType.EOF, null);
+            }
+            return pending.poll();
+        }, callback);
+    }
+
+    private static Callable<Asn1ReadResult> decodeTask(Asn1ReadResult result) {
+        return () -> {
+            result.getObject();
+            return result;
+        };
+    }
+
+    private static Asn1ReadResult await(Future<Asn1ReadResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static Asn1ReadResult take(CompletionService<Asn1ReadResult> completionService) throws IOException {
+        try {
+            return await(completionService.take());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private void decode(ResultSource source, Asn1ReadCallback callback) throws IOException {
+        if (this.ordered) {
+            ArrayDeque<Future<Asn1ReadResult>> inFlight = new ArrayDeque<>();
+            Asn1ReadResult result;
+            while ((result = source.next()) != null) {
+                FutureTask<Asn1ReadResult> task = new FutureTask<>(decodeTask(result));
+                if (result.isDecodePending()) {
+                    this.executor.execute(task);
+                } else {
+                    task.run();
+                }
+                inFlight.add(task);
+                while (inFlight.size() >= this.maxInFlight || (!inFlight.isEmpty() && inFlight.peek().isDone())) {
+                    callback.onData(await(inFlight.poll()));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                callback.onData(await(inFlight.poll()));
+            }
+        } else {
+            CompletionService<Asn1ReadResult> completionService = new ExecutorCompletionService<>(this.executor);
+            int inFlight = 0;
+            Asn1ReadResult result;
+            while ((result = source.next()) != null) {
+                if (!result.isDecodePending()) {
+                    if (result.getReadType() == Asn1ReadResult.ReadType.EOF) {
+                        for (; inFlight > 0; inFlight--) {
+                            callback.onData(take(completionService));
+                        }
+                    }
+                    callback.onData(result);
+                    continue;
+                }
+                completionService.submit(decodeTask(result));
+                inFlight++;
+                Future<Asn1ReadResult> done;
+                while (inFlight >= this.maxInFlight) {
+                    callback.onData(take(completionService));
+                    inFlight--;
+                }
+                while ((done = completionService.poll()) != null) {
+                    callback.onData(await(done));
+                    inFlight--;
+                }
+            }
+            for (; inFlight > 0; inFlight--) {
+                callback.onData(take(completionService));
+            }
+        }
+    }
+}
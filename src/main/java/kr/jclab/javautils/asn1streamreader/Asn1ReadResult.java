@@ -1,5 +1,8 @@
 package kr.jclab.javautils.asn1streamreader;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 public class Asn1ReadResult {
@@ -8,36 +11,197 @@ public class Asn1ReadResult {
         EOF,
         BEGIN_SEQUENCE,
         END_SEQUENCE,
-        OBJECT
+        OBJECT,
+        /**
+         * Header of an element whose content is delivered in CONTENT_CHUNK results.
+         */
+        BEGIN_CONTENT,
+        /**
+         * A piece of content. The offset is the stream offset of the piece itself.
+         */
+        CONTENT_CHUNK,
+        END_CONTENT
     }
 
-    private final byte[] rawBuffer;
+    public static final int TAG_CLASS_UNIVERSAL = 0;
+    public static final int TAG_CLASS_APPLICATION = 1;
+    public static final int TAG_CLASS_CONTEXT_SPECIFIC = 2;
+    public static final int TAG_CLASS_PRIVATE = 3;
+
+    private byte[] rawBuffer;
+    private final ByteBuffer rawByteBuffer;
     private final ReadType readType;
-    private final Object object;
+    private Object object;
+    private final Asn1ObjectDecoder decoder;
+    private volatile boolean decodePending;
+
+    private final long offset;
+    private final int tagClass;
+    private final boolean tagConstructed;
+    private final int tagNumber;
+    private final int headerLength;
+    private final long contentLength;
 
     public Asn1ReadResult(byte[] rawBuffer, ReadType readType, Object object) {
+        this(rawBuffer, null, readType, object, null, -1, -1, false, -1, 0, 0);
+    }
+
+    Asn1ReadResult(
+            byte[] rawBuffer,
+            ByteBuffer rawByteBuffer,
+            ReadType readType,
+            Object object,
+            Asn1ObjectDecoder decoder,
+            long offset,
+            int tagClass,
+            boolean tagConstructed,
+            int tagNumber,
+            int headerLength,
+            long contentLength
+    ) {
         this.rawBuffer = rawBuffer;
+        this.rawByteBuffer = rawByteBuffer;
         this.readType = readType;
         this.object = object;
+        this.decoder = decoder;
+        this.decodePending = (decoder != null);
+        this.offset = offset;
+        this.tagClass = tagClass;
+        this.tagConstructed = tagConstructed;
+        this.tagNumber = tagNumber;
+        this.headerLength = headerLength;
+        this.contentLength = contentLength;
     }
 
+    /**
+     * If this result holds a slice of the input, the bytes are copied on first access.
+     */
     public byte[] getRawBuffer() {
+        if (this.rawBuffer == null && this.rawByteBuffer != null) {
+            ByteBuffer source = this.rawByteBuffer.duplicate();
+            byte[] buffer = new byte[source.remaining()];
+            source.get(buffer);
+            this.rawBuffer = buffer;
+        }
         return this.rawBuffer;
     }
 
+    /**
+     * Read-only view of the raw bytes. No copy is made in zero-copy mode.
+     */
+    public ByteBuffer getRawByteBuffer() {
+        if (this.rawByteBuffer != null) {
+            return this.rawByteBuffer.duplicate();
+        }
+        if (this.rawBuffer != null) {
+            return ByteBuffer.wrap(this.rawBuffer).asReadOnlyBuffer();
+        }
+        return null;
+    }
+
+    /**
+     * Number of raw bytes, without copying a slice.
+     */
+    int getRawLength() {
+        if (this.rawBuffer != null) {
+            return this.rawBuffer.length;
+        }
+        return (this.rawByteBuffer != null) ? this.rawByteBuffer.remaining() : 0;
+    }
+
+    public boolean isRawSlice() {
+        return this.rawByteBuffer != null;
+    }
+
     public ReadType getReadType() {
         return readType;
     }
 
+    /**
+     * Absolute stream offset of the first raw byte, or -1 if the result has no raw data.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * One of TAG_CLASS_*, or -1 if the result has no header.
+     */
+    public int getTagClass() {
+        return tagClass;
+    }
+
+    public boolean isTagConstructed() {
+        return tagConstructed;
+    }
+
+    public int getTagNumber() {
+        return tagNumber;
+    }
+
+    /**
+     * Length of the identifier and length octets.
+     */
+    public int getHeaderLength() {
+        return headerLength;
+    }
+
+    /**
+     * Content length taken from the header, or -1 for the indefinite length form.
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    public boolean isIndefiniteLength() {
+        return contentLength < 0;
+    }
+
+    public long getContentOffset() {
+        return (offset < 0) ? -1 : (offset + headerLength);
+    }
+
+    /**
+     * For OBJECT results the raw bytes are decoded on first access with the configured Asn1ObjectDecoder,
+     * and the result is cached.
+     *
+     * @throws UncheckedIOException if the raw bytes can not be decoded
+     */
     public Object getObject() {
+        if (this.decodePending) {
+            synchronized (this) {
+                if (this.decodePending) {
+                    this.object = decodeObject();
+                    this.decodePending = false;
+                }
+            }
+        }
         return object;
     }
 
+    boolean isDecodePending() {
+        return this.decodePending;
+    }
+
+    private Object decodeObject() {
+        try {
+            return this.decoder.decode(this);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @Override
     public String toString() {
         return "Asn1ReadResult{" +
-                "rawBuffer=" + Arrays.toString(rawBuffer) +
+                "rawBuffer=" + Arrays.toString(getRawBuffer()) +
                 ", readType=" + readType +
+                ", offset=" + offset +
+                ", tagClass=" + tagClass +
+                ", tagConstructed=" + tagConstructed +
+                ", tagNumber=" + tagNumber +
+                ", headerLength=" + headerLength +
+                ", contentLength=" + contentLength +
                 ", object=" + object +
                 '}';
     }
@@ -1,12 +1,60 @@
 package kr.jclab.javautils.asn1streamreader;
 
+import kr.jclab.javautils.asn1streamreader.decoder.BouncyCastleObjectDecoder;
+import kr.jclab.javautils.asn1streamreader.decoder.LightweightObjectDecoder;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
 public class Asn1ReaderOptions {
     private final boolean stripSequence;
     private final Asn1ReadCallback readCallback;
+    private final Asn1BatchReadCallback batchReadCallback;
+    private final boolean zeroCopy;
+    private final boolean decodeObject;
+    private final Asn1ObjectDecoder objectDecoder;
+    private final Asn1TagFilter tagFilter;
+    private final int contentChunkSize;
+    private final long maxElementSize;
+    private final int maxDepth;
+    private final long maxBufferedBytes;
+    private final int channelBufferSize;
+    private final boolean directChannelBuffer;
+    private final Executor readExecutor;
+    private final ThreadFactory readThreadFactory;
 
-    protected Asn1ReaderOptions(boolean stripSequence, Asn1ReadCallback readCallback) {
+    protected Asn1ReaderOptions(
+            boolean stripSequence,
+            Asn1ReadCallback readCallback,
+            Asn1BatchReadCallback batchReadCallback,
+            boolean zeroCopy,
+            boolean decodeObject,
+            Asn1ObjectDecoder objectDecoder,
+            Asn1TagFilter tagFilter,
+            int contentChunkSize,
+            long maxElementSize,
+            int maxDepth,
+            long maxBufferedBytes,
+            int channelBufferSize,
+            boolean directChannelBuffer,
+            Executor readExecutor,
+            ThreadFactory readThreadFactory
+    ) {
         this.stripSequence = stripSequence;
         this.readCallback = readCallback;
+        this.batchReadCallback = batchReadCallback;
+        this.zeroCopy = zeroCopy;
+        this.decodeObject = decodeObject;
+        this.objectDecoder = (objectDecoder != null) ? objectDecoder : defaultObjectDecoder();
+        this.tagFilter = tagFilter;
+        this.contentChunkSize = contentChunkSize;
+        this.maxElementSize = maxElementSize;
+        this.maxDepth = maxDepth;
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.channelBufferSize = channelBufferSize;
+        this.directChannelBuffer = directChannelBuffer;
+        this.readExecutor = readExecutor;
+        this.readThreadFactory = readThreadFactory;
     }
 
     public boolean isStripSequence() {
@@ -17,6 +65,79 @@ public class Asn1ReaderOptions {
         return readCallback;
     }
 
+    public Asn1BatchReadCallback getBatchReadCallback() {
+        return batchReadCallback;
+    }
+
+    /**
+     * Whether results are pushed to a read callback or a batch read callback instead of being read with readObject.
+     */
+    public boolean hasReadCallback() {
+        return readCallback != null || batchReadCallback != null;
+    }
+
+    public boolean isZeroCopy() {
+        return zeroCopy;
+    }
+
+    public boolean isDecodeObject() {
+        return decodeObject;
+    }
+
+    public Asn1ObjectDecoder getObjectDecoder() {
+        return objectDecoder;
+    }
+
+    /**
+     * BouncyCastle when it is on the classpath, so getObject() keeps returning ASN1Primitive,
+     * and the LightweightObjectDecoder otherwise.
+     */
+    static Asn1ObjectDecoder defaultObjectDecoder() {
+        return DefaultObjectDecoderHolder.INSTANCE;
+    }
+
+    private static final class DefaultObjectDecoderHolder {
+        static final Asn1ObjectDecoder INSTANCE = BouncyCastleObjectDecoder.isAvailable()
+                ? new BouncyCastleObjectDecoder()
+                : new LightweightObjectDecoder();
+    }
+
+    public Asn1TagFilter getTagFilter() {
+        return tagFilter;
+    }
+
+    public int getContentChunkSize() {
+        return contentChunkSize;
+    }
+
+    public long getMaxElementSize() {
+        return maxElementSize;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getMaxBufferedBytes() {
+        return maxBufferedBytes;
+    }
+
+    public int getChannelBufferSize() {
+        return channelBufferSize;
+    }
+
+    public boolean isDirectChannelBuffer() {
+        return directChannelBuffer;
+    }
+
+    public Executor getReadExecutor() {
+        return readExecutor;
+    }
+
+    public ThreadFactory getReadThreadFactory() {
+        return readThreadFactory;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -24,6 +145,19 @@ public class Asn1ReaderOptions {
     public static final class Builder {
         private boolean stripSequence = false;
         private Asn1ReadCallback readCallback;
+        private Asn1BatchReadCallback batchReadCallback;
+        private boolean zeroCopy = false;
+        private boolean decodeObject = true;
+        private Asn1ObjectDecoder objectDecoder;
+        private Asn1TagFilter tagFilter;
+        private int contentChunkSize = 0;
+        private long maxElementSize = Long.MAX_VALUE;
+        private int maxDepth = Integer.MAX_VALUE;
+        private long maxBufferedBytes = Long.MAX_VALUE;
+        private int channelBufferSize = 8192;
+        private boolean directChannelBuffer = false;
+        private Executor readExecutor;
+        private ThreadFactory readThreadFactory;
 
         private Builder() {
         }
@@ -38,8 +172,147 @@ public class Asn1ReaderOptions {
             return this;
         }
 
+        /**
+         * Delivers all results parsed from one input chunk in a single call. Takes precedence over readCallback.
+         */
+        public Builder batchReadCallback(Asn1BatchReadCallback batchReadCallback) {
+            this.batchReadCallback = batchReadCallback;
+            return this;
+        }
+
+        /**
+         * Emit results that hold a read-only slice of the written ByteBuffer instead of a copy.
+         * Only elements that span several writes are copied.
+         * The written arrays must not be modified while such results are in use.
+         */
+        public Builder zeroCopy(boolean zeroCopy) {
+            this.zeroCopy = zeroCopy;
+            return this;
+        }
+
+        /**
+         * When disabled, OBJECT results only carry the raw bytes and getObject() returns null.
+         * When enabled (default), the object is decoded lazily on the first getObject() call.
+         */
+        public Builder decodeObject(boolean decodeObject) {
+            this.decodeObject = decodeObject;
+            return this;
+        }
+
+        /**
+         * Decoder used by getObject() of OBJECT results. When not set, BouncyCastle is used if it is on the classpath,
+         * and the LightweightObjectDecoder otherwise.
+         */
+        public Builder objectDecoder(Asn1ObjectDecoder objectDecoder) {
+            this.objectDecoder = objectDecoder;
+            return this;
+        }
+
+        /**
+         * Elements that would be emitted as OBJECT but are rejected by the filter are skipped over
+         * without being buffered or decoded.
+         */
+        public Builder tagFilter(Asn1TagFilter tagFilter) {
+            this.tagFilter = tagFilter;
+            return this;
+        }
+
+        /**
+         * Definite-length elements with more content than this are not buffered.
+         * They are emitted as BEGIN_CONTENT, CONTENT_CHUNK pieces of at most this size as the data arrives,
+         * and END_CONTENT, instead of a single OBJECT. 0 (default) disables chunking.
+         */
+        public Builder contentChunkSize(int contentChunkSize) {
+            if (contentChunkSize < 0) {
+                throw new IllegalArgumentException("contentChunkSize must not be negative");
+            }
+            this.contentChunkSize = contentChunkSize;
+            return this;
+        }
+
+        /**
+         * Maximum size (header and content) of an element that is buffered to be emitted as OBJECT.
+         * Skipped and chunked elements are not subject to this limit.
+         */
+        public Builder maxElementSize(long maxElementSize) {
+            this.maxElementSize = maxElementSize;
+            return this;
+        }
+
+        /**
+         * Maximum nesting depth of constructed and indefinite-length elements that are parsed.
+         */
+        public Builder maxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        /**
+         * Maximum number of bytes the reader holds for a stream: the elements that are not yet complete,
+         * and the results queued for readObject that have not been taken yet.
+         * An element whose header would take the total over the limit is rejected.
+         */
+        public Builder maxBufferedBytes(long maxBufferedBytes) {
+            this.maxBufferedBytes = maxBufferedBytes;
+            return this;
+        }
+
+        /**
+         * Size of the buffer a channel reader reads into. The buffer is reused for the whole stream.
+         */
+        public Builder channelBufferSize(int channelBufferSize) {
+            if (channelBufferSize <= 0) {
+                throw new IllegalArgumentException("channelBufferSize must be positive");
+            }
+            this.channelBufferSize = channelBufferSize;
+            return this;
+        }
+
+        /**
+         * Allocate the channel read buffer outside of the heap, so socket reads do not go through a temporary direct buffer.
+         */
+        public Builder directChannelBuffer(boolean directChannelBuffer) {
+            this.directChannelBuffer = directChannelBuffer;
+            return this;
+        }
+
+        /**
+         * Executor that runs the read loop of a reader with a read callback over a blocking InputStream.
+         * The loop occupies one task until the reader is closed or the stream ends.
+         */
+        public Builder readExecutor(Executor readExecutor) {
+            this.readExecutor = readExecutor;
+            return this;
+        }
+
+        /**
+         * Thread factory for the read loop when no readExecutor is set,
+         * e.g. Thread.ofVirtual().factory() on JDK 21 and later.
+         * Without either, a daemon platform thread is started per reader.
+         */
+        public Builder readThreadFactory(ThreadFactory readThreadFactory) {
+            this.readThreadFactory = readThreadFactory;
+            return this;
+        }
+
         public Asn1ReaderOptions build() {
-            return new Asn1ReaderOptions(stripSequence, readCallback);
+            return new Asn1ReaderOptions(
+                    stripSequence,
+                    readCallback,
+                    batchReadCallback,
+                    zeroCopy,
+                    decodeObject,
+                    objectDecoder,
+                    tagFilter,
+                    contentChunkSize,
+                    maxElementSize,
+                    maxDepth,
+                    maxBufferedBytes,
+                    channelBufferSize,
+                    directChannelBuffer,
+                    readExecutor,
+                    readThreadFactory
+            );
         }
     }
 }
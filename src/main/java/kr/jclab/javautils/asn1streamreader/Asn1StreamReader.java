@@ -1,19 +1,27 @@
 package kr.jclab.javautils.asn1streamreader;
 
+import kr.jclab.javautils.asn1streamreader.internal.BatchQueue;
 import kr.jclab.javautils.asn1streamreader.internal.ByteBufferReadBuffer;
+import kr.jclab.javautils.asn1streamreader.internal.ChannelReadBuffer;
+import kr.jclab.javautils.asn1streamreader.internal.GrowableByteArrayPool;
 import kr.jclab.javautils.asn1streamreader.internal.InputStreamReadBuffer;
 import kr.jclab.javautils.asn1streamreader.internal.ReadBuffer;
+import kr.jclab.javautils.asn1streamreader.internal.ReadBufferAfterReadHandler;
 import kr.jclab.javautils.asn1streamreader.object.Asn1SequenceResult;
-import org.bouncycastle.asn1.ASN1InputStream;
-import org.bouncycastle.asn1.ASN1Primitive;
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -21,18 +29,23 @@ public class Asn1StreamReader extends FilterInputStream {
     private final Asn1ReaderOptions options;
     private Thread readThread = null;
     private final AtomicBoolean readThreadRun = new AtomicBoolean();
+    private CountDownLatch readLoopDone = null;
 
-    private final boolean readingUsingCallback;
-    private final LinkedBlockingQueue<Asn1ReadResult> queue = new LinkedBlockingQueue<>();
+    private boolean readingUsingCallback;
+    private final ChannelReadBuffer channelReadBuffer;
+    private final BatchQueue<Asn1ReadResult> queue = new BatchQueue<>(Asn1ReadResult::getRawLength);
+    private final ArrayList<Asn1ReadResult> deliveryBatch = new ArrayList<>();
 
-    private boolean eof = false;
-    private IOException lastException = null;
+    private volatile boolean eof = false;
+    private volatile IOException lastException = null;
+
+    private static final Asn1ReaderOptions DEFAULT_OPTIONS = Asn1ReaderOptions.builder().build();
 
     private static Asn1ReaderOptions defaultOptions(Asn1ReaderOptions options) {
         if(options != null) {
             return options;
         }
-        return Asn1ReaderOptions.builder().build();
+        return DEFAULT_OPTIONS;
     }
 
     public Asn1StreamReader(InputStream in) throws IOException {
@@ -46,75 +59,341 @@ public class Asn1StreamReader extends FilterInputStream {
     public Asn1StreamReader(InputStream in, Asn1ReaderOptions options) throws IOException {
         super(in);
         this.options = defaultOptions(options);
+        this.channelReadBuffer = null;
+        this.tagBufferPool = new GrowableByteArrayPool();
         if (in instanceof CallbackInputStream) {
             // Case-1
             this.readingUsingCallback = true;
-            CallbackInputStream.Callbacks inputCallbacks = new CallbackInputStream.Callbacks() {
-                @Override
-                public void onData(ByteBuffer buffer) {
-                    ByteBufferReadBuffer readBuffer = new ByteBufferReadBuffer(buffer);
-                    try {
-                        while (readBuffer.available() > 0) {
-                            List<Asn1ReadResult> readResults = Asn1StreamReader.this.onData(readBuffer);
-                            if (options.getReadCallback() != null) {
-                                for (Asn1ReadResult item : readResults) {
-                                    options.getReadCallback().onData(item);
-                                }
-                            } else {
-                                queue.addAll(readResults);
-                            }
+            ((CallbackInputStream)in).setCallbacks(new InputCallbacks(in));
+        }else{
+            // Case-2/3
+            this.readingUsingCallback = false;
+            if (this.options.hasReadCallback()) {
+                this.startReadLoop();
+            }
+        }
+    }
 
-                        }
-                    } catch (IOException e) {
-                        if (e instanceof EOFException) {
-                            setEof();
-                        }
-                        e.printStackTrace();
-                    }
-                }
+    /**
+     * Receives the writes of a CallbackInputStream. Writes to a stream the reader has been reset away from are ignored.
+     */
+    private final class InputCallbacks implements CallbackInputStream.Callbacks {
+        private final InputStream source;
+
+        InputCallbacks(InputStream source) {
+            this.source = source;
+        }
 
-                @Override
-                public void onClose() {
-                    setEof();
+        @Override
+        public void onData(ByteBuffer buffer) throws IOException {
+            if (in != this.source) {
+                return;
+            }
+            ByteBufferReadBuffer readBuffer = new ByteBufferReadBuffer(buffer);
+            List<Asn1ReadResult> batch = deliveryBatch;
+            try {
+                while (readBuffer.available() > 0) {
+                    batch.addAll(Asn1StreamReader.this.onData(readBuffer));
                 }
-            };
-            ((CallbackInputStream)in).setCallbacks(inputCallbacks);
+                spillRawSlices(readBuffer);
+                deliver(batch);
+            } catch (EOFException e) {
+                deliver(batch);
+                setEof();
+            } catch (IOException e) {
+                // Results completed before the failure are still delivered; the error is thrown from write
+                deliver(batch);
+                throw e;
+            }
+        }
+
+        @Override
+        public void onClose() {
+            if (in != this.source || lastException != null) {
+                return;
+            }
+            setEof();
+        }
+    }
+
+    // Case-5. 같은 package의 reader가 ReadBuffer를 직접 넘겨주는 경우 (Asn1FileReader, Asn1Multiplexer)
+    Asn1StreamReader(Asn1ReaderOptions options) {
+        this(options, new GrowableByteArrayPool());
+    }
+
+    Asn1StreamReader(Asn1ReaderOptions options, GrowableByteArrayPool tagBufferPool) {
+        super(null);
+        this.options = defaultOptions(options);
+        this.readingUsingCallback = false;
+        this.channelReadBuffer = null;
+        this.tagBufferPool = tagBufferPool;
+    }
+
+    public Asn1StreamReader(ReadableByteChannel channel) {
+        this(channel, null);
+    }
+
+    // Case-4. Channel에서 직접 read되는 경우 (blocking, 또는 Selector와 함께 non-blocking)
+    public Asn1StreamReader(ReadableByteChannel channel, Asn1ReaderOptions options) {
+        super(Channels.newInputStream(channel));
+        this.options = defaultOptions(options);
+        this.readingUsingCallback = false;
+        this.tagBufferPool = new GrowableByteArrayPool();
+        this.channelReadBuffer = new ChannelReadBuffer(channel, this.options.getChannelBufferSize(), this.options.isDirectChannelBuffer());
+    }
+
+    /**
+     * Reads what the channel has ready and parses it in place, e.g. when a Selector reports the channel readable.
+     * A non-blocking channel is read until it has no more data; a blocking channel is read once.
+     * Results are passed to the read callback, or queued for readObject.
+     *
+     * @return false once the channel has reached end of stream
+     */
+    public boolean readChannel() throws IOException {
+        if (this.channelReadBuffer == null) {
+            throw new IOException("Not a channel reader");
+        }
+        if (lastException != null) {
+            throw lastException;
+        }
+        if (this.eof) {
+            return false;
+        }
+        this.channelReadBuffer.setNonBlocking(true);
+        this.channelReadBuffer.fill();
+        List<Asn1ReadResult> batch = this.deliveryBatch;
+        try {
+            while (this.channelReadBuffer.available() > 0) {
+                batch.addAll(this.onData(this.channelReadBuffer));
+            }
+        } finally {
+            this.deliver(batch);
+        }
+        if (this.channelReadBuffer.isEof()) {
+            this.setEof();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses from the given buffer until an element is complete or the buffer is exhausted.
+     * Elements that are still open when the buffer runs out are copied, so the buffer may be dropped afterwards.
+     */
+    List<Asn1ReadResult> readFrom(ReadBuffer readBuffer) throws IOException {
+        List<Asn1ReadResult> readResults = this.onData(readBuffer);
+        if (readBuffer.available() == 0) {
+            this.spillRawSlices(readBuffer);
+        }
+        return readResults;
+    }
+
+    /**
+     * Makes the reader parse another stream with the same options, as if it had just been constructed with it.
+     * Open elements, queued results, end of stream and the last error are dropped. The previous stream is not closed.
+     * A read loop must have ended first, at the end of its stream, on an error or by close().
+     */
+    public void reset(InputStream in) throws IOException {
+        if (this.channelReadBuffer != null) {
+            throw new IllegalStateException("Channel reader can only be reset to a channel");
+        }
+        this.awaitReadLoop();
+        this.clearState();
+        this.in = in;
+        if (in instanceof CallbackInputStream) {
+            // Case-1
+            this.readingUsingCallback = true;
+            ((CallbackInputStream)in).setCallbacks(new InputCallbacks(in));
         }else{
             // Case-2/3
             this.readingUsingCallback = false;
-            if (this.options.getReadCallback() != null) {
-                this.readThreadRun.set(true);
-                this.readThread = new Thread(() -> {
-                    InputStreamReadBuffer readBuffer = new InputStreamReadBuffer(in, false);
-                    while (readThreadRun.get()) {
-                        try {
-                            try {
-                                if (this.in.available() < 0) {
-                                    this.setEof();
-                                    break;
-                                }
-                                List<Asn1ReadResult> readResults = onData(readBuffer);
-                                for(Asn1ReadResult item : readResults) {
-                                    options.getReadCallback().onData(item);
-                                }
-                            } catch (IOException e) {
-                                if (e.getCause() instanceof InterruptedException) {
-                                    throw (InterruptedException)e.getCause();
-                                }
-                                lastException = e;
-                            }
-                        } catch (InterruptedException intException) {
-                            // Nothing
-                        }
-                    }
-                });
+            if (this.options.hasReadCallback()) {
+                this.startReadLoop();
+            }
+        }
+    }
+
+    /**
+     * Makes a channel reader parse another channel, keeping its read buffer. The previous channel is not closed.
+     */
+    public void reset(ReadableByteChannel channel) throws IOException {
+        if (this.channelReadBuffer == null) {
+            throw new IllegalStateException("Not a channel reader");
+        }
+        this.clearState();
+        this.in = Channels.newInputStream(channel);
+        this.channelReadBuffer.reset(channel);
+    }
+
+    boolean isChannelReader() {
+        return this.channelReadBuffer != null;
+    }
+
+    Asn1ReaderOptions getOptions() {
+        return this.options;
+    }
+
+    private void clearState() {
+        this.discardParseState();
+        this.streamPosition = 0;
+        this.currentReadBuffer = null;
+        this.queue.clear();
+        this.deliveryBatch.clear();
+        this.readResults.clear();
+        this.eof = false;
+        this.lastException = null;
+    }
+
+    private void awaitReadLoop() throws IOException {
+        CountDownLatch done = this.readLoopDone;
+        if (done == null) {
+            return;
+        }
+        synchronized (this.readThreadRun) {
+            if (this.readThread == Thread.currentThread()) {
+                throw new IllegalStateException("Can not reset the reader from its read loop");
+            }
+            if (this.readThreadRun.get() && done.getCount() > 0 && !this.eof && this.lastException == null) {
+                throw new IllegalStateException("Read loop is still running");
+            }
+            this.readThreadRun.set(false);
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+        this.readLoopDone = null;
+    }
+
+    boolean isParsing() {
+        return this.parseContextDepth > 0;
+    }
+
+    /**
+     * Open elements and stream position of one stream, detached from the reader so that
+     * one reader can parse many streams in turn.
+     */
+    static final class ParseState {
+        ParseContext[] frames = new ParseContext[8];
+        int depth = 0;
+        long streamPosition = 0;
+    }
+
+    /**
+     * Swaps the reader's parse state with the given one.
+     */
+    void exchangeParseState(ParseState state) {
+        ParseContext[] frames = this.parseContextFrames;
+        int depth = this.parseContextDepth;
+        long streamPosition = this.streamPosition;
+        this.parseContextFrames = state.frames;
+        this.parseContextDepth = state.depth;
+        this.streamPosition = state.streamPosition;
+        state.frames = frames;
+        state.depth = depth;
+        state.streamPosition = streamPosition;
+    }
+
+    /**
+     * Drops the open elements and returns their buffers to the pool.
+     */
+    void discardParseState() {
+        for (int i = 0; i < this.parseContextDepth; i++) {
+            ParseContext parseContext = this.parseContextFrames[i];
+            this.tagBufferPool.release(parseContext.tagBuffer);
+            parseContext.tagBuffer = null;
+        }
+        this.parseContextDepth = 0;
+    }
+
+    private void startReadLoop() {
+        CountDownLatch done = new CountDownLatch(1);
+        this.readLoopDone = done;
+        this.readThreadRun.set(true);
+        Runnable loop = () -> this.readLoop(done);
+        Executor executor = this.options.getReadExecutor();
+        if (executor != null) {
+            executor.execute(loop);
+        }else{
+            ThreadFactory threadFactory = this.options.getReadThreadFactory();
+            Thread thread;
+            if (threadFactory != null) {
+                thread = threadFactory.newThread(loop);
+            }else{
+                thread = new Thread(loop, "asn1-stream-reader");
+                thread.setDaemon(true);
             }
+            thread.start();
+        }
+    }
+
+    private void readLoop(CountDownLatch done) {
+        synchronized (this.readThreadRun) {
+            if (!this.readThreadRun.get()) {
+                done.countDown();
+                return;
+            }
+            this.readThread = Thread.currentThread();
+        }
+        List<Asn1ReadResult> batch = this.deliveryBatch;
+        try {
+            InputStreamReadBuffer readBuffer = new InputStreamReadBuffer(this.in, false);
+            InputStreamReadBuffer availableReadBuffer = new InputStreamReadBuffer(this.in, true);
+            while (this.readThreadRun.get()) {
+                // Waits for one element, then takes whatever else has already arrived into the same batch
+                batch.addAll(onData(readBuffer));
+                List<Asn1ReadResult> readResults;
+                while (!(readResults = onData(availableReadBuffer)).isEmpty()) {
+                    batch.addAll(readResults);
+                }
+                this.deliver(batch);
+            }
+        } catch (EOFException e) {
+            if (this.readThreadRun.get()) {
+                this.deliver(batch);
+                this.setEof();
+            }
+        } catch (IOException e) {
+            // Closing the reader closes the stream under a blocked read
+            if (this.readThreadRun.get()) {
+                this.deliver(batch);
+                this.lastException = e;
+            }
+        } finally {
+            synchronized (this.readThreadRun) {
+                this.readThread = null;
+                Thread.interrupted();
+            }
+            done.countDown();
+        }
+    }
+
+    /**
+     * Passes a batch to the configured callback, or queues it under one lock, and clears it.
+     */
+    private void deliver(List<Asn1ReadResult> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            if (this.options.getBatchReadCallback() != null) {
+                this.options.getBatchReadCallback().onData(batch);
+            } else if (this.options.getReadCallback() != null) {
+                for (Asn1ReadResult item : batch) {
+                    this.options.getReadCallback().onData(item);
+                }
+            } else {
+                this.queue.addAll(batch);
+            }
+        } finally {
+            batch.clear();
         }
     }
 
     @Override
     public int available() throws IOException {
-        if (this.options.getReadCallback() != null) {
+        if (this.options.hasReadCallback()) {
             throw new IOException("Not support on callback mode");
         }
         return this.queue.size();
@@ -127,19 +406,17 @@ public class Asn1StreamReader extends FilterInputStream {
     private void setEof() {
         Asn1ReadResult eofResult = new Asn1ReadResult(null, Asn1ReadResult.ReadType.EOF, null);
         this.eof = true;
-        if(this.options.getReadCallback() != null) {
+        if (this.options.getBatchReadCallback() != null) {
+            this.options.getBatchReadCallback().onData(Collections.singletonList(eofResult));
+        } else if(this.options.getReadCallback() != null) {
             this.options.getReadCallback().onData(eofResult);
         }else{
-            try {
-                this.queue.put(eofResult);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+            this.queue.add(eofResult);
         }
     }
 
     public Asn1ReadResult readObject(long timeout, TimeUnit unit) throws IOException, InterruptedException {
-        if (this.options.getReadCallback() != null) {
+        if (this.options.hasReadCallback()) {
             throw new IOException("Not support on callback mode");
         }
         if (lastException != null) {
@@ -148,22 +425,39 @@ public class Asn1StreamReader extends FilterInputStream {
         if (this.readingUsingCallback) {
             return this.queue.poll(timeout, unit);
         }else{
+            if (this.channelReadBuffer != null) {
+                ReadableByteChannel channel = this.channelReadBuffer.getChannel();
+                if (!(channel instanceof SelectableChannel) || ((SelectableChannel) channel).isBlocking()) {
+                    throw new IOException("Not support on blocking channel");
+                }
+            }
             Asn1ReadResult result;
             long timeoutNs = unit.toNanos(timeout);
             long sleepMs = (timeoutNs < 1000000) ? timeoutNs / 100000 : 100;
             long beginAt = System.nanoTime();
             while((result = this.readObject(true)) == null) {
-                if ((System.nanoTime() - beginAt) >= timeoutNs)
+                long remainingNs = timeoutNs - (System.nanoTime() - beginAt);
+                if (remainingNs <= 0)
                     break;
-                Thread.sleep(sleepMs);
+                if (this.in instanceof AwaitableInputStream) {
+                    // Wakes up on every write, parses what has arrived so far and waits again if the element is still incomplete
+                    if (!((AwaitableInputStream) this.in).awaitAvailable(remainingNs, TimeUnit.NANOSECONDS))
+                        break;
+                } else {
+                    Thread.sleep(sleepMs);
+                }
             }
             return result;
         }
     }
 
     public Asn1ReadResult readObject(boolean nonBlocking) throws IOException {
-        if (!this.queue.isEmpty()) {
-            return this.queue.poll();
+        Asn1ReadResult queued = this.queue.poll();
+        if (queued != null) {
+            return queued;
+        }
+        if (lastException != null) {
+            throw lastException;
         }
         if (this.readingUsingCallback) {
             if(!nonBlocking) {
@@ -174,37 +468,112 @@ public class Asn1StreamReader extends FilterInputStream {
                 }
             }
         }else{
-            List<Asn1ReadResult> readResults = onData(new InputStreamReadBuffer(this.in, nonBlocking));
+            ReadBuffer readBuffer;
+            if (this.channelReadBuffer != null) {
+                this.channelReadBuffer.setNonBlocking(nonBlocking);
+                readBuffer = this.channelReadBuffer;
+            }else{
+                readBuffer = new InputStreamReadBuffer(this.in, nonBlocking);
+            }
+            List<Asn1ReadResult> readResults;
             try {
-                for(int i=1; i<readResults.size(); i++) {
-                    this.queue.put(readResults.get(i));
+                readResults = onData(readBuffer);
+            } catch (EOFException e) {
+                if (this.isInsideElement()) {
+                    // Kept as the failure, so it is told apart from the end of input between elements
+                    throw this.fail(new EOFException("Truncated element at position " + this.parseContextFrames[0].tagOffset));
                 }
-            } catch (InterruptedException e) {
-                throw new IOException(e);
+                throw e;
+            }
+            if (readResults.size() > 1) {
+                this.queue.addAll(readResults.subList(1, readResults.size()));
             }
             if (this.available() < 0) {
                 this.setEof();
             }
+            if (readResults.isEmpty() && !this.eof && this.isInputDrained()) {
+                this.setEof();
+                return this.queue.poll();
+            }
             return readResults.isEmpty() ? null : readResults.get(0);
         }
         return null;
     }
 
+    /**
+     * Whether the parser has read part of an element that is not complete yet.
+     */
+    private boolean isInsideElement() {
+        return (this.parseContextDepth > 1)
+                || ((this.parseContextDepth == 1) && (this.parseContextFrames[0].step != ParseContext.ParseStep.READ_TAG_BEGIN));
+    }
+
+    private boolean isInputDrained() {
+        if (this.channelReadBuffer != null) {
+            return this.channelReadBuffer.isEof();
+        }
+        return (this.in instanceof AwaitableInputStream) && ((AwaitableInputStream) this.in).isDrained();
+    }
+
+    /**
+     * Moves up to maxElements results that are ready to dest without blocking, taking the queue lock once.
+     * A reader that pulls from its input parses what is already available.
+     *
+     * @return number of results moved
+     */
+    public int drainTo(Collection<? super Asn1ReadResult> dest, int maxElements) throws IOException {
+        if (this.options.hasReadCallback()) {
+            throw new IOException("Not support on callback mode");
+        }
+        int count = this.queue.drainTo(dest, maxElements);
+        if (!this.readingUsingCallback) {
+            Asn1ReadResult result;
+            while (count < maxElements && (result = this.readObject(true)) != null) {
+                dest.add(result);
+                count++;
+            }
+        } else if (count == 0 && lastException != null) {
+            throw lastException;
+        }
+        return count;
+    }
+
+    public int drainTo(Collection<? super Asn1ReadResult> dest) throws IOException {
+        return this.drainTo(dest, Integer.MAX_VALUE);
+    }
+
     @Override
     public void close() throws IOException {
-        if (this.readThread != null) {
-            this.readThreadRun.set(false);
-            this.readThread.interrupt();
+        Thread thread;
+        boolean started;
+        CountDownLatch done = this.readLoopDone;
+        synchronized (this.readThreadRun) {
+            started = this.readThreadRun.getAndSet(false);
+            thread = this.readThread;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+        this.in.close();
+        if (started && thread != null && thread != Thread.currentThread()) {
             try {
-                this.readThread.join();
+                done.await();
             } catch (InterruptedException e) {
                 throw new IOException(e);
             }
         }
-        this.in.close();
     }
 
-    private final LinkedList<ParseContext> parseContextStack = new LinkedList<>();
+    private static final long MAX_BUFFERED_ELEMENT_SIZE = Integer.MAX_VALUE - 8;
+
+    // Frames are recycled: parseContextFrames[0..parseContextDepth) is the active stack
+    private ParseContext[] parseContextFrames = new ParseContext[8];
+    private int parseContextDepth = 0;
+    private final ArrayList<Asn1ReadResult> readResults = new ArrayList<>();
+    private final GrowableByteArrayPool tagBufferPool;
+    private ReadBuffer currentReadBuffer = null;
+    private long streamPosition = 0;
+    private final ReadBufferAfterReadHandler positionTracker = length -> this.streamPosition += length;
 
     private boolean _checkEmitableData(ParseContext parseContext) {
         if (this.options.isStripSequence()) {
@@ -214,11 +583,218 @@ public class Asn1StreamReader extends FilterInputStream {
         }
     }
 
-    private ArrayList<Byte> getTagBuffer(ParseContext parseContext) {
-        if ((this.options.isStripSequence() && (parseContext.depth <= 1)) || (parseContext.depth == 0)) {
-            return parseContext.tagBuffer;
-        }else {
-            return this.getTagBuffer(parseContext.parent);
+    private boolean isTagBufferOwner(int depth) {
+        return (this.options.isStripSequence() && (depth <= 1)) || (depth == 0);
+    }
+
+    private ParseContext pushParseContext(ParseContext parent) {
+        int depth = this.parseContextDepth;
+        if (depth == this.parseContextFrames.length) {
+            this.parseContextFrames = Arrays.copyOf(this.parseContextFrames, depth * 2);
+        }
+        ParseContext parseContext = this.parseContextFrames[depth];
+        if (parseContext == null) {
+            parseContext = new ParseContext();
+            this.parseContextFrames[depth] = parseContext;
+        }
+        parseContext.reset(parent, isTagBufferOwner(depth) ? this.tagBufferPool.acquire() : null);
+        this.parseContextDepth = depth + 1;
+        return parseContext;
+    }
+
+    private void appendTagByte(ParseContext parseContext, byte value) {
+        ParseContext owner = parseContext.tagBufferOwner;
+        if (owner.rawSliceStart < 0 && !owner.tagSkipped) {
+            owner.tagBuffer.append(value);
+        }
+    }
+
+    private void readTagContent(ReadBuffer readBuffer, ParseContext parseContext, int length) throws IOException {
+        ParseContext owner = parseContext.tagBufferOwner;
+        if (owner.rawSliceStart < 0 && !owner.tagSkipped) {
+            readBuffer.readBufferTo(owner.tagBuffer, length);
+        } else {
+            readBuffer.skip(length);
+        }
+    }
+
+    private void applyTagFilter(ParseContext parseContext) {
+        Asn1TagFilter tagFilter = this.options.getTagFilter();
+        if (tagFilter == null || !this._checkEmitableData(parseContext)) {
+            return;
+        }
+        if (!tagFilter.accept(parseContext.tagClass, parseContext.tagConstructed, parseContext.tagNumber)) {
+            parseContext.tagSkipped = true;
+            parseContext.tagBuffer.clear();
+            parseContext.rawSliceStart = -1;
+        }
+    }
+
+    /**
+     * Copies bytes of elements that are still being sliced out of the read buffer into their tag buffers,
+     * before the read buffer is handed back to the caller.
+     */
+    private void spillRawSlices(ReadBuffer readBuffer) {
+        int position = readBuffer.position();
+        for (int i = 0; i < this.parseContextDepth; i++) {
+            ParseContext parseContext = this.parseContextFrames[i];
+            if (parseContext.rawSliceStart >= 0) {
+                parseContext.tagBuffer.append(readBuffer.slice(parseContext.rawSliceStart, position));
+                parseContext.rawSliceStart = -1;
+            }
+        }
+    }
+
+    private ByteBuffer takeRawSlice(ParseContext owner) {
+        if (owner.rawSliceStart < 0) {
+            return null;
+        }
+        ByteBuffer slice = this.currentReadBuffer.slice(owner.rawSliceStart, this.currentReadBuffer.position());
+        owner.rawSliceStart = -1;
+        return slice;
+    }
+
+    private Asn1ReadResult newReadResult(ParseContext owner, Asn1ReadResult.ReadType readType, Object object) {
+        return newReadResult(owner, readType, object, null);
+    }
+
+    private Asn1ReadResult newReadResult(ParseContext owner, Asn1ReadResult.ReadType readType, Object object, Asn1ObjectDecoder decoder) {
+        ByteBuffer slice = takeRawSlice(owner);
+        byte[] buffer = (slice != null) ? null : owner.tagBuffer.toByteArray();
+        return new Asn1ReadResult(
+                buffer,
+                slice,
+                readType,
+                object,
+                decoder,
+                owner.tagOffset,
+                owner.tagClass,
+                owner.tagConstructed,
+                owner.tagNumber,
+                owner.tagHeaderLength,
+                (owner.tagLenSize < 0) ? -1 : owner.tagLength
+        );
+    }
+
+    /**
+     * Drops the element that could not be parsed and keeps the error, so that the reader does not go on
+     * from the middle of it. Every later parse call throws the same error until the reader is reset.
+     */
+    private IOException fail(IOException e) {
+        this.discardParseState();
+        this.lastException = e;
+        return e;
+    }
+
+    /**
+     * The error that stopped parsing, or null. With a read callback this is the only place a read loop reports it.
+     */
+    public IOException getLastException() {
+        return this.lastException;
+    }
+
+    /**
+     * Forgets a parse error, for in-package readers that drop the failed stream and go on with another one.
+     */
+    void clearLastException() {
+        this.lastException = null;
+    }
+
+    /**
+     * Rejects an element as soon as its header tells that buffering it would exceed the configured limits.
+     */
+    private void checkBufferLimits(ParseContext parseContext) throws IOException {
+        ParseContext owner = parseContext.tagBufferOwner;
+        if (!this._checkEmitableData(owner) || owner.tagSkipped || owner.tagChunked) {
+            return;
+        }
+        long contentLength = (parseContext.tagLenSize < 0) ? 0 : parseContext.tagLength;
+        long elementSize = (this.streamPosition - owner.tagOffset) + contentLength;
+        if (elementSize > this.options.getMaxElementSize()) {
+            throw this.fail(new Asn1LimitExceededException("Element size " + elementSize + " exceeds limit " + this.options.getMaxElementSize(), owner.tagOffset));
+        }
+        if (elementSize > MAX_BUFFERED_ELEMENT_SIZE) {
+            throw this.fail(new Asn1LimitExceededException("Element size " + elementSize + " can not be buffered, use contentChunkSize or tagFilter", owner.tagOffset));
+        }
+        if (this.options.getMaxBufferedBytes() == Long.MAX_VALUE) {
+            return;
+        }
+        // The element once complete, the other open elements and the results not yet taken from the queue
+        long bufferedBytes = elementSize + this.queue.weight();
+        for (int i = 0; i < this.parseContextDepth; i++) {
+            ParseContext frame = this.parseContextFrames[i];
+            if (frame != owner && frame.tagBuffer != null) {
+                bufferedBytes += frame.tagBuffer.size();
+            }
+        }
+        if (bufferedBytes > this.options.getMaxBufferedBytes()) {
+            throw this.fail(new Asn1LimitExceededException("Buffered size " + bufferedBytes + " exceeds limit " + this.options.getMaxBufferedBytes(), owner.tagOffset));
+        }
+    }
+
+    /**
+     * Trades the buffer taken when the element began for a pooled one of the size its header announces.
+     */
+    private void sizeTagBuffer(ParseContext parseContext) {
+        // A zero-copy slice only spills into the buffer if the element outlasts the input it began in
+        if (parseContext.tagBufferOwner != parseContext || parseContext.tagSkipped || parseContext.tagChunked
+                || parseContext.rawSliceStart >= 0 || !this._checkEmitableData(parseContext)) {
+            return;
+        }
+        // checkBufferLimits has already bounded the element size
+        long elementSize = (this.streamPosition - parseContext.tagOffset) + parseContext.tagLength;
+        parseContext.tagBuffer = this.tagBufferPool.resize(parseContext.tagBuffer, (int) elementSize);
+    }
+
+    private Asn1ReadResult prepareContentChunks(ParseContext parseContext) {
+        int contentChunkSize = this.options.getContentChunkSize();
+        if (contentChunkSize <= 0 || parseContext.tagSkipped || !this._checkEmitableData(parseContext)) {
+            return null;
+        }
+        if (parseContext.tagLength <= contentChunkSize) {
+            return null;
+        }
+        parseContext.tagChunked = true;
+        Asn1ReadResult readResult = newReadResult(parseContext, Asn1ReadResult.ReadType.BEGIN_CONTENT, null);
+        parseContext.tagBuffer.clear();
+        return readResult;
+    }
+
+    private void readContentChunk(ReadBuffer readBuffer, ParseContext parseContext, List<Asn1ReadResult> readResults) throws IOException, InterruptedException {
+        int length = (int) Math.min(parseContext.tagLength - parseContext.tagWrittenLength, this.options.getContentChunkSize());
+        if (readBuffer.isNonBlocking()) {
+            length = Math.min(length, readBuffer.available());
+        }
+        if (length <= 0) {
+            return;
+        }
+        long chunkOffset = this.streamPosition;
+        byte[] chunk = null;
+        ByteBuffer slice = null;
+        if (this.options.isZeroCopy() && readBuffer.isSliceable()) {
+            int position = readBuffer.position();
+            slice = readBuffer.slice(position, position + length);
+            readBuffer.skip(length);
+        } else {
+            chunk = new byte[length];
+            readBuffer.readBufferTo(chunk);
+        }
+        parseContext.tagWrittenLength += length;
+        readResults.add(new Asn1ReadResult(
+                chunk,
+                slice,
+                Asn1ReadResult.ReadType.CONTENT_CHUNK,
+                null,
+                null,
+                chunkOffset,
+                parseContext.tagClass,
+                parseContext.tagConstructed,
+                parseContext.tagNumber,
+                parseContext.tagHeaderLength,
+                parseContext.tagLength
+        ));
+        if (parseContext.tagWrittenLength == parseContext.tagLength) {
+            this.tagReadDone(parseContext, null, readResults);
         }
     }
 
@@ -228,27 +804,154 @@ public class Asn1StreamReader extends FilterInputStream {
         }
     }
 
+    private void tagLengthRead(ParseContext parseContext, List<Asn1ReadResult> readResults) throws IOException, InterruptedException {
+        applyTagFilter(parseContext);
+        if (parseContext.depth == 0 && this.options.isStripSequence()) {
+            parseContext.step = ParseContext.ParseStep.READ_TAG_CONTENT;
+        } else {
+            parseContext.step = ParseContext.ParseStep.READ_TAG_CONTENT_FIXED_LENGTH;
+        }
+        parseContext.tagEndOffset = this.streamPosition + parseContext.tagLength;
+        addIfNotNull(readResults, this.tagReadPrepare(parseContext));
+        addIfNotNull(readResults, this.prepareContentChunks(parseContext));
+        checkBufferLimits(parseContext);
+        sizeTagBuffer(parseContext);
+        if (parseContext.tagLength == 0) {
+            if (parseContext.step == ParseContext.ParseStep.READ_TAG_CONTENT_FIXED_LENGTH && !parseContext.tagChunked) {
+                // No content byte will arrive to complete it
+                this.tagReadDone(parseContext, null, readResults);
+            } else if (parseContext.step == ParseContext.ParseStep.READ_TAG_CONTENT && hasChildElements(parseContext)) {
+                // An empty sequence has no last child to end it
+                this.tagReadDone(parseContext, null, readResults);
+            }
+        }
+    }
+
+    /**
+     * Whether the content of an element read in READ_TAG_CONTENT is parsed as child elements.
+     */
+    private static boolean hasChildElements(ParseContext parseContext) {
+        return parseContext.tagConstructed
+                || (parseContext.tagIsUniversal() && ((parseContext.tagNumber == 0x03) || (parseContext.tagNumber == 0x04)));
+    }
+
+    private void tagIndefiniteLengthRead(ParseContext parseContext, List<Asn1ReadResult> readResults) throws IOException {
+        applyTagFilter(parseContext);
+        parseContext.tagLenSize = -1;
+        parseContext.tagLenRemaining = -1;
+        parseContext.step = ParseContext.ParseStep.READ_TAG_CONTENT;
+        addIfNotNull(readResults, this.tagReadPrepare(parseContext));
+        checkBufferLimits(parseContext);
+    }
+
+    /**
+     * Decodes a whole tag header in one pass when the read buffer holds it contiguously.
+     * Returns false without consuming anything when the header is not complete in the buffer,
+     * and the byte-at-a-time steps take over.
+     */
+    private boolean readTagHeaderFast(ReadBuffer readBuffer, ParseContext parseContext, List<Asn1ReadResult> readResults) throws IOException, InterruptedException {
+        ByteBuffer peek = readBuffer.peek();
+        if (peek == null || peek.remaining() < 2) {
+            return false;
+        }
+        int start = peek.position();
+        int limit = peek.limit();
+        int offset = start;
+
+        int first = peek.get(offset++);
+        int tagNumber = first & 0x1F;
+        if (tagNumber == 0x1F) {
+            int value = 0;
+            int b;
+            do {
+                if (offset >= limit) {
+                    return false;
+                }
+                b = peek.get(offset++);
+                value = (value << 7) | (b & 0x7F);
+            } while ((b & 0x80) != 0);
+            tagNumber = value;
+        }
+        if (offset >= limit) {
+            return false;
+        }
+        int lengthByte = peek.get(offset++);
+        int len = lengthByte & 0x7F;
+        long length = 0;
+        if (((lengthByte & 0x80) != 0) && (len != 0)) {
+            if (len > 6 || offset + len > limit) {
+                // Oversized lengths are reported by the regular steps
+                return false;
+            }
+            for (int i = 0; i < len; i++) {
+                length = (length << 8) | (peek.get(offset++) & 0xFF);
+            }
+        }
+
+        parseContext.tagClass = (first & 0xC0) >>> 6;
+        parseContext.tagConstructed = ((first & 0x20) != 0);
+        parseContext.tagNumber = tagNumber;
+        readTagContent(readBuffer, parseContext, offset - start);
+        parseContext.tagHeaderLength = (int) (this.streamPosition - parseContext.tagOffset);
+
+        if (parseContext.tagIsEOC() && lengthByte == 0) {
+            tagReadDone(parseContext, null, readResults);
+            return true;
+        }
+        if ((lengthByte & 0x80) == 0) {
+            parseContext.tagLength = len;
+            parseContext.tagLenSize = 0;
+            tagLengthRead(parseContext, readResults);
+        } else if (len == 0) {
+            tagIndefiniteLengthRead(parseContext, readResults);
+        } else {
+            parseContext.tagLenSize = len;
+            parseContext.tagLenRemaining = 0;
+            parseContext.tagTempLength = length;
+            parseContext.tagLength = length;
+            tagLengthRead(parseContext, readResults);
+        }
+        return true;
+    }
+
+    /**
+     * The returned list is reused and only valid until the next call.
+     */
     private List<Asn1ReadResult> onData(ReadBuffer readBuffer) throws IOException {
-        List<Asn1ReadResult> readResults = new ArrayList<>(2);
-        while ((!readBuffer.isNonBlocking()) || (readBuffer.available() > 0 && readResults.isEmpty())) {
-            if (this.parseContextStack.size() == 0) {
-                this.parseContextStack.addLast(new ParseContext(null));
+        if (this.lastException != null) {
+            throw this.lastException;
+        }
+        List<Asn1ReadResult> readResults = this.readResults;
+        readResults.clear();
+        this.currentReadBuffer = readBuffer;
+        readBuffer.setAfterReadHandler(this.positionTracker);
+        while (readResults.isEmpty() && ((!readBuffer.isNonBlocking()) || (readBuffer.available() > 0))) {
+            if (this.parseContextDepth == 0) {
+                this.pushParseContext(null);
             }
 
-            final ParseContext parseContext = this.parseContextStack.getLast();
+            final ParseContext parseContext = this.parseContextFrames[this.parseContextDepth - 1];
             try {
-                readBuffer.setAfterReadHandler(parseContext::decrementTotalRemaining);
                 switch (parseContext.step) {
                     case READ_TAG_BEGIN:
                         if ((!readBuffer.isNonBlocking()) || readBuffer.available(1)) {
+                            if (parseContext.tagBuffer != null) {
+                                parseContext.tagBuffer.clear();
+                                if (this.options.isZeroCopy() && readBuffer.isSliceable()) {
+                                    parseContext.rawSliceStart = readBuffer.position();
+                                }
+                            }
+                            parseContext.tagOffset = this.streamPosition;
+                            parseContext.tagTempInt10 = 0;
+                            parseContext.tagWrittenLength = 0;
+                            if (this.readTagHeaderFast(readBuffer, parseContext, readResults)) {
+                                break;
+                            }
                             byte buf = readBuffer.readByte();
-                            parseContext.tagBuffer.clear();
-                            getTagBuffer(parseContext).add(buf);
-                            parseContext.tagClass = buf >>> 6;
+                            appendTagByte(parseContext, buf);
+                            parseContext.tagClass = (buf & 0xC0) >>> 6;
                             parseContext.tagConstructed = ((buf & 0x20) != 0);
                             parseContext.tagNumber = buf & 0x1F;
-                            parseContext.tagTempInt10 = 0;
-                            parseContext.tagWrittenLength = 0;
                             if (parseContext.tagNumber == 0x1F) {
                                 parseContext.step = ParseContext.ParseStep.READ_TAG_LONG;
                             } else {
@@ -264,7 +967,7 @@ public class Asn1StreamReader extends FilterInputStream {
                             byte buf;
                             do {
                                 buf = readBuffer.readByte();
-                                getTagBuffer(parseContext).add(buf);
+                                appendTagByte(parseContext, buf);
                                 parseContext.tagTempInt10 = (parseContext.tagTempInt10 << 7) | (buf & 0x7F);
                             } while ((readBuffer.available(1)) && ((buf & 0x80) != 0));
                             if ((buf & 0x80) == 0) {
@@ -282,91 +985,86 @@ public class Asn1StreamReader extends FilterInputStream {
                             byte buf = readBuffer.readByte();
                             int len = buf & 0x7F;
 
-                            getTagBuffer(parseContext).add(buf);
+                            appendTagByte(parseContext, buf);
+                            parseContext.tagHeaderLength = (int) (this.streamPosition - parseContext.tagOffset);
 
-                            if (parseContext.tagNumber == 0 && len == 0) {
-                                readResults.addAll(tagReadDone(parseContext, null));
+                            if (parseContext.tagIsEOC() && buf == 0) {
+                                tagReadDone(parseContext, null, readResults);
                                 break;
                             }
 
                             if (buf == len) {
-                                if (parseContext.depth == 0 && this.options.isStripSequence()) {
-                                    parseContext.step = ParseContext.ParseStep.READ_TAG_CONTENT;
-                                } else {
-                                    parseContext.step = ParseContext.ParseStep.READ_TAG_CONTENT_FIXED_LENGTH;
-                                }
                                 parseContext.tagLength = len;
-                                parseContext.totalRemaining = parseContext.tagLength;
-                                addIfNotNull(readResults, this.tagReadPrepare(parseContext));
+                                parseContext.tagLenSize = 0;
+                                tagLengthRead(parseContext, readResults);
                                 break;
                             }
                             if (len > 6) {
-                                throw new IOException("Length over 48 bits not supported at position ?");
-                                // this.position
+                                throw this.fail(new IOException("Length over 48 bits not supported at position " + parseContext.tagOffset));
                             }
                             if (len == 0) {
-                                parseContext.tagLenSize = -1;
-                                parseContext.tagLenRemaining = -1;
-                                parseContext.step = ParseContext.ParseStep.READ_TAG_CONTENT;
-                                addIfNotNull(readResults, this.tagReadPrepare(parseContext));
+                                tagIndefiniteLengthRead(parseContext, readResults);
                                 break;
                             }
+                            parseContext.tagLenSize = len;
                             parseContext.tagLenRemaining = len;
-                            parseContext.tagTempInt10 = 0;
+                            parseContext.tagTempLength = 0;
                             parseContext.step = ParseContext.ParseStep.READ_TAG_LENGTH_LONG;
                         } else {
                             break;
                         }
 
                     case READ_TAG_LENGTH_LONG:
-                        while ((!readBuffer.isNonBlocking()) || ((readBuffer.available() > 0) && (parseContext.tagLenRemaining > 0))) {
+                        while ((parseContext.tagLenRemaining > 0) && ((!readBuffer.isNonBlocking()) || (readBuffer.available() > 0))) {
                             byte buf = readBuffer.readByte();
-                            getTagBuffer(parseContext).add(buf);
-                            parseContext.tagTempInt10 = (parseContext.tagTempInt10 << 8) | (buf & 0xFF);
+                            appendTagByte(parseContext, buf);
+                            parseContext.tagTempLength = (parseContext.tagTempLength << 8) | (buf & 0xFF);
                             parseContext.tagLenRemaining--;
                         }
                         if (parseContext.tagLenRemaining == 0) {
-                            parseContext.tagLength = parseContext.tagTempInt10;
-                            parseContext.tagTotalLength = parseContext.tagTotalReadLength + parseContext.tagLength;
-                            parseContext.totalRemaining = parseContext.tagLength;
-                            parseContext.step = ParseContext.ParseStep.READ_TAG_CONTENT_FIXED_LENGTH;
-                            addIfNotNull(readResults, this.tagReadPrepare(parseContext));
+                            parseContext.tagHeaderLength = (int) (this.streamPosition - parseContext.tagOffset);
+                            parseContext.tagLength = parseContext.tagTempLength;
+                            tagLengthRead(parseContext, readResults);
                         }
                         break;
 
                     case READ_TAG_CONTENT:
-                        if (parseContext.tagConstructed) {
-                            ParseContext subParseContext = new ParseContext(parseContext);
-                            parseContextStack.addLast(subParseContext);
-                        } else if (parseContext.tagIsUniversal() && ((parseContext.tagNumber == 0x03) || (parseContext.tagNumber == 0x04))) {
-                            ParseContext subParseContext = new ParseContext(parseContext);
-                            parseContextStack.addLast(subParseContext);
+                        if (this.parseContextDepth >= this.options.getMaxDepth()) {
+                            throw this.fail(new Asn1LimitExceededException("Nesting depth exceeds limit " + this.options.getMaxDepth(), this.streamPosition));
+                        }
+                        if (hasChildElements(parseContext)) {
+                            this.pushParseContext(parseContext);
+                        } else {
+                            // A primitive element with an indefinite length, or at the top level in strip mode
+                            throw this.fail(new IOException("Primitive element can not be read as a sequence at position " + parseContext.tagOffset));
                         }
                         break;
 
                     case READ_TAG_CONTENT_FIXED_LENGTH:
-                        if (!readBuffer.isNonBlocking()) {
-                            int remainTagContent = parseContext.tagLength - parseContext.tagWrittenLength;
-                            readBuffer.readBufferTo(getTagBuffer(parseContext), remainTagContent);
+                        if (parseContext.tagChunked) {
+                            readContentChunk(readBuffer, parseContext, readResults);
+                        } else if (!readBuffer.isNonBlocking()) {
+                            int remainTagContent = (int) Math.min(parseContext.tagLength - parseContext.tagWrittenLength, Integer.MAX_VALUE);
+                            readTagContent(readBuffer, parseContext, remainTagContent);
                             parseContext.tagWrittenLength += remainTagContent;
                             if (parseContext.tagWrittenLength == parseContext.tagLength) {
-                                readResults.addAll(this.tagReadDone(parseContext, null));
+                                this.tagReadDone(parseContext, null, readResults);
                             }
                         } else {
                             if (readBuffer.available() > 0) {
-                                int remainTagContent = parseContext.tagLength - parseContext.tagWrittenLength;
-                                int avail = Math.min(readBuffer.available(), remainTagContent);
-                                readBuffer.readBufferTo(getTagBuffer(parseContext), avail);
+                                long remainTagContent = parseContext.tagLength - parseContext.tagWrittenLength;
+                                int avail = (int) Math.min(readBuffer.available(), remainTagContent);
+                                readTagContent(readBuffer, parseContext, avail);
                                 parseContext.tagWrittenLength += avail;
                                 if (parseContext.tagWrittenLength == parseContext.tagLength) {
-                                    readResults.addAll(this.tagReadDone(parseContext, null));
+                                    this.tagReadDone(parseContext, null, readResults);
                                 }
                             }
                         }
                         break;
 
                     case READ_TAG_CONTENT_DONE:
-                        readResults.addAll(this.tagReadDone(parseContext, null));
+                        this.tagReadDone(parseContext, null, readResults);
                         break;
                 }
             } catch (InterruptedException e) {
@@ -388,54 +1086,53 @@ public class Asn1StreamReader extends FilterInputStream {
 
     private Asn1ReadResult tagReadPrepare(ParseContext parseContext) {
         if (this.options.isStripSequence() && parseContext.depth == 0) {
-            byte[] buffer = toByteArray(getTagBuffer(parseContext));
-            return new Asn1ReadResult(
-                    buffer,
+            return newReadResult(
+                    parseContext,
                     Asn1ReadResult.ReadType.BEGIN_SEQUENCE,
                     new Asn1SequenceResult(
-                            parseContext.tagLength == 0,
-                            (parseContext.tagLenSize > 0) ? (parseContext.tagTotalReadLength + parseContext.tagLength) : 0
+                            parseContext.tagLenSize < 0,
+                            (parseContext.tagLenSize >= 0) ? (parseContext.tagEndOffset - parseContext.tagOffset) : 0
                     )
             );
         }
         return null;
     }
 
-    private List<Asn1ReadResult> tagReadDone(ParseContext parseContext, ParseContext currentContext) throws IOException, InterruptedException {
-        List<Asn1ReadResult> readResults = new ArrayList<>(2);
+    private void tagReadDone(ParseContext parseContext, ParseContext currentContext, List<Asn1ReadResult> readResults) throws IOException, InterruptedException {
         parseContext.step = ParseContext.ParseStep.READ_TAG_BEGIN;
-        if (this._checkEmitableData(parseContext) && !parseContext.tagIsEOC()) {
-            byte[] buffer = new byte[parseContext.tagBuffer.size()];
-            for (int i = 0; i < parseContext.tagBuffer.size(); i++) {
-                buffer[i] = parseContext.tagBuffer.get(i);
+        if (this._checkEmitableData(parseContext) && !parseContext.tagIsEOC() && !parseContext.tagSkipped) {
+            if (parseContext.tagChunked) {
+                readResults.add(newReadResult(parseContext, Asn1ReadResult.ReadType.END_CONTENT, null));
+            } else {
+                readResults.add(newReadResult(parseContext, Asn1ReadResult.ReadType.OBJECT, null, this.options.isDecodeObject() ? this.options.getObjectDecoder() : null));
             }
-            ASN1InputStream asn1InputStream = new ASN1InputStream(new ByteArrayInputStream(buffer));
-            ASN1Primitive primitive = asn1InputStream.readObject();
-            asn1InputStream.close();
-            readResults.add(new Asn1ReadResult(buffer, Asn1ReadResult.ReadType.OBJECT, primitive));
         }
 
-        parseContextStack.removeLast();
+        this.parseContextDepth--;
 
         if(parseContext.depth == 0) {
             if(this.options.isStripSequence()) {
                 Asn1SequenceResult sequenceResult = new Asn1SequenceResult(
-                        parseContext.tagLength == 0,
-                        parseContext.tagTotalReadLength
+                        parseContext.tagLenSize < 0,
+                        this.streamPosition - parseContext.tagOffset
                 );
-                byte[] buffer = (currentContext != null) ? toByteArray(currentContext.tagBuffer) : new byte[0];
-                readResults.add(new Asn1ReadResult(buffer, Asn1ReadResult.ReadType.END_SEQUENCE, sequenceResult));
+                if (currentContext != null) {
+                    readResults.add(newReadResult(currentContext, Asn1ReadResult.ReadType.END_SEQUENCE, sequenceResult));
+                } else {
+                    readResults.add(new Asn1ReadResult(new byte[0], Asn1ReadResult.ReadType.END_SEQUENCE, sequenceResult));
+                }
             }
         }else{
             if(parseContext.tagIsEOC()) {
-                readResults.addAll(this.tagReadDone(parseContext.parent, parseContext));
+                this.tagReadDone(parseContext.parent, parseContext, readResults);
             }
         }
 
-        if(parseContext.depth == 1 && parseContext.parent.totalRemaining == 0) {
-            readResults.addAll(this.tagReadDone(parseContext.parent, null));
+        if(parseContext.depth == 1 && parseContext.parent.remaining(this.streamPosition) == 0) {
+            this.tagReadDone(parseContext.parent, null, readResults);
         }
 
-        return readResults;
+        this.tagBufferPool.release(parseContext.tagBuffer);
+        parseContext.tagBuffer = null;
     }
 }
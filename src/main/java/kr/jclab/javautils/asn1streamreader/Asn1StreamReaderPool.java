@@ -0,0 +1,90 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+
+/**
+ * Keeps a bounded number of idle readers with the same options, so that short-lived streams
+ * reuse a reset reader and its buffers instead of constructing a new one.
+ */
+public class Asn1StreamReaderPool {
+    public static final int DEFAULT_MAX_IDLE = 16;
+
+    private final Asn1ReaderOptions options;
+    private final int maxIdle;
+    private final ArrayDeque<Asn1StreamReader> idleReaders = new ArrayDeque<>();
+    private final ArrayDeque<Asn1StreamReader> idleChannelReaders = new ArrayDeque<>();
+
+    public Asn1StreamReaderPool(Asn1ReaderOptions options) {
+        this(options, DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * @param maxIdle maximum number of idle readers kept for each kind of source (stream, channel)
+     */
+    public Asn1StreamReaderPool(Asn1ReaderOptions options, int maxIdle) {
+        if (maxIdle < 0) {
+            throw new IllegalArgumentException("maxIdle must not be negative");
+        }
+        this.options = (options != null) ? options : Asn1ReaderOptions.builder().build();
+        this.maxIdle = maxIdle;
+    }
+
+    public Asn1ReaderOptions getOptions() {
+        return this.options;
+    }
+
+    public Asn1StreamReader acquire(InputStream in) throws IOException {
+        Asn1StreamReader reader;
+        synchronized (this.idleReaders) {
+            reader = this.idleReaders.pollLast();
+        }
+        if (reader == null) {
+            return new Asn1StreamReader(in, this.options);
+        }
+        reader.reset(in);
+        return reader;
+    }
+
+    public Asn1StreamReader acquire(ReadableByteChannel channel) throws IOException {
+        Asn1StreamReader reader;
+        synchronized (this.idleChannelReaders) {
+            reader = this.idleChannelReaders.pollLast();
+        }
+        if (reader == null) {
+            return new Asn1StreamReader(channel, this.options);
+        }
+        reader.reset(channel);
+        return reader;
+    }
+
+    /**
+     * Closes the reader, which also closes its stream, and keeps it for a later acquire if the pool has room.
+     * Readers with other options are only closed.
+     */
+    public void release(Asn1StreamReader reader) throws IOException {
+        reader.close();
+        if (reader.getOptions() != this.options) {
+            return;
+        }
+        ArrayDeque<Asn1StreamReader> idle = reader.isChannelReader() ? this.idleChannelReaders : this.idleReaders;
+        synchronized (idle) {
+            if (idle.size() < this.maxIdle) {
+                idle.addLast(reader);
+            }
+        }
+    }
+
+    public int getIdleCount() {
+        int count;
+        synchronized (this.idleReaders) {
+            count = this.idleReaders.size();
+        }
+        synchronized (this.idleChannelReaders) {
+            count += this.idleChannelReaders.size();
+        }
+        return count;
+    }
+}
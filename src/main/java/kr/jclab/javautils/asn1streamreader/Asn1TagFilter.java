@@ -0,0 +1,12 @@
+package kr.jclab.javautils.asn1streamreader;
+
+@FunctionalInterface
+public interface Asn1TagFilter {
+    /**
+     * @param tagClass    one of Asn1ReadResult.TAG_CLASS_*
+     * @param constructed constructed bit of the identifier octet
+     * @param tagNumber   tag number
+     * @return false to skip the element without buffering or decoding it
+     */
+    boolean accept(int tagClass, boolean constructed, int tagNumber);
+}
@@ -0,0 +1,21 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An input that can signal data arrival, so that a reader waiting for the next element
+ * is woken up as soon as bytes are written instead of polling.
+ */
+public interface AwaitableInputStream {
+    /**
+     * Blocks until at least one byte can be read without blocking, the input is closed, or the timeout elapses.
+     *
+     * @return true if data is available, false on timeout or when the input is closed and drained
+     */
+    boolean awaitAvailable(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * @return true once the input is closed and every byte has been read
+     */
+    boolean isDrained();
+}
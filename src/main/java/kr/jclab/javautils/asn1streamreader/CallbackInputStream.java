@@ -7,16 +7,37 @@ import java.util.LinkedList;
 
 public class CallbackInputStream extends InputStream {
     private final LinkedList<ByteBuffer> queue = new LinkedList<>();
+    private final long pendingCapacity;
+    private long pendingBytes = 0;
 
     public interface Callbacks {
-        void onData(ByteBuffer buffer);
+        /**
+         * An exception thrown here is thrown from the write call that passed the buffer.
+         */
+        void onData(ByteBuffer buffer) throws IOException;
         void onClose();
     }
 
     private Callbacks callbacks = null;
     private boolean closed = false;
 
-    public CallbackInputStream() { }
+    public CallbackInputStream() {
+        this(Long.MAX_VALUE);
+    }
+
+    /**
+     * @param pendingCapacity maximum number of bytes kept while no callbacks are set
+     */
+    public CallbackInputStream(long pendingCapacity) {
+        if (pendingCapacity <= 0) {
+            throw new IllegalArgumentException("pendingCapacity must be positive");
+        }
+        this.pendingCapacity = pendingCapacity;
+    }
+
+    public long getPendingBytes() {
+        return this.pendingBytes;
+    }
 
     public void setCallbacks(Callbacks callbacks) throws IOException {
         if (this.queue.isEmpty() && this.closed) {
@@ -24,14 +45,18 @@ public class CallbackInputStream extends InputStream {
         }
         this.callbacks = callbacks;
         if(callbacks != null) {
-            for (ByteBuffer b : this.queue) {
-                callbacks.onData(b);
-            }
-            if(this.closed) {
-                callbacks.onClose();
-                this.callbacks = null;
+            try {
+                for (ByteBuffer b : this.queue) {
+                    callbacks.onData(b);
+                }
+                if(this.closed) {
+                    callbacks.onClose();
+                    this.callbacks = null;
+                }
+            } finally {
+                this.queue.clear();
+                this.pendingBytes = 0;
             }
-            this.queue.clear();
         }
     }
 
@@ -43,11 +68,7 @@ public class CallbackInputStream extends InputStream {
         ByteBuffer byteBuffer = ByteBuffer.allocate(1);
         byteBuffer.put(b);
         byteBuffer.flip();
-        if (this.callbacks != null) {
-            this.callbacks.onData(byteBuffer);
-        }else{
-            this.queue.add(byteBuffer);
-        }
+        this.dispatch(byteBuffer);
     }
 
     public void write(byte[] b, int offset, int length) throws IOException {
@@ -56,11 +77,7 @@ public class CallbackInputStream extends InputStream {
         }
 
         ByteBuffer byteBuffer = ByteBuffer.wrap(b, offset, length);
-        if (this.callbacks != null) {
-            this.callbacks.onData(byteBuffer);
-        }else{
-            this.queue.add(byteBuffer);
-        }
+        this.dispatch(byteBuffer);
     }
 
     public void write(byte[] b) throws IOException {
@@ -71,6 +88,19 @@ public class CallbackInputStream extends InputStream {
         this.write(b, 0, b.length);
     }
 
+    private void dispatch(ByteBuffer byteBuffer) throws IOException {
+        if (this.callbacks != null) {
+            this.callbacks.onData(byteBuffer);
+        }else{
+            int length = byteBuffer.remaining();
+            if ((this.pendingBytes > 0) && (this.pendingBytes + length > this.pendingCapacity)) {
+                throw new IOException("Pending data exceeds capacity " + this.pendingCapacity);
+            }
+            this.queue.add(byteBuffer);
+            this.pendingBytes += length;
+        }
+    }
+
     @Override
     public int read() throws IOException {
         throw new IOException("Can not use");
@@ -1,6 +1,6 @@
 package kr.jclab.javautils.asn1streamreader;
 
-import java.util.ArrayList;
+import kr.jclab.javautils.asn1streamreader.internal.GrowableByteArray;
 
 public class ParseContext {
     public enum ParseStep {
@@ -13,32 +13,60 @@ public class ParseContext {
         READ_TAG_CONTENT_DONE
     }
 
-    public final ParseContext parent;
-    public final int depth;
+    public ParseContext parent;
+    public int depth;
 
-    public int totalRemaining = -1;
+    public ParseStep step;
 
-    public ParseStep step = ParseStep.READ_TAG_BEGIN;
+    public long tagOffset;
+    public int tagHeaderLength;
+    public int tagClass;
+    public boolean tagConstructed;
+    public int tagNumber;
+    public long tagLength;
+    public int tagTempInt10;
+    public long tagTempLength;
+    public int tagLenSize;
+    public int tagLenRemaining;
+    public GrowableByteArray tagBuffer;
+    public ParseContext tagBufferOwner;
+    public int rawSliceStart;
+    public boolean tagSkipped;
+    public boolean tagChunked;
+    public long tagWrittenLength;
+    public long tagEndOffset;
 
-    public int tagClass = 0;
-    public boolean tagConstructed = false;
-    public int tagNumber = 0;
-    public int tagLength = 0;
-    public int tagTempInt10 = 0;
-    public int tagLenSize = 0;
-    public int tagLenRemaining = 0;
-    public ArrayList<Byte> tagBuffer = new ArrayList<>(16);
-    public int tagWrittenLength = 0;
-    public int tagTotalLength = 0;
-    public int tagTotalReadLength = 0;
+    ParseContext() {
+    }
+
+    ParseContext(ParseContext parent, GrowableByteArray tagBuffer) {
+        this.reset(parent, tagBuffer);
+    }
 
-    ParseContext(ParseContext parent) {
+    /**
+     * Prepares this frame for a new element, so that frames can be recycled by the parser.
+     */
+    void reset(ParseContext parent, GrowableByteArray tagBuffer) {
         this.parent = parent;
-        if(parent != null) {
-            this.depth = parent.depth + 1;
-        }else{
-            this.depth = 0;
-        }
+        this.depth = (parent != null) ? (parent.depth + 1) : 0;
+        this.step = ParseStep.READ_TAG_BEGIN;
+        this.tagOffset = 0;
+        this.tagHeaderLength = 0;
+        this.tagClass = 0;
+        this.tagConstructed = false;
+        this.tagNumber = 0;
+        this.tagLength = 0;
+        this.tagTempInt10 = 0;
+        this.tagTempLength = 0;
+        this.tagLenSize = 0;
+        this.tagLenRemaining = 0;
+        this.tagBuffer = tagBuffer;
+        this.tagBufferOwner = (tagBuffer != null) ? this : parent.tagBufferOwner;
+        this.rawSliceStart = -1;
+        this.tagSkipped = false;
+        this.tagChunked = false;
+        this.tagWrittenLength = 0;
+        this.tagEndOffset = -1;
     }
 
     public int getDepth() {
@@ -52,13 +80,13 @@ public class ParseContext {
         return this.tagClass == 0x00 && this.tagNumber == 0x00;
     }
 
-    public void decrementTotalRemaining(int length) {
-        if (this.totalRemaining > 0) {
-            this.totalRemaining -= length;
-        }
-        this.tagTotalReadLength += length;
-        if (this.parent != null) {
-            this.parent.decrementTotalRemaining(length);
+    /**
+     * Content bytes left at the given stream position, or -1 for the indefinite length form.
+     */
+    public long remaining(long streamPosition) {
+        if (this.tagEndOffset < 0) {
+            return -1;
         }
+        return this.tagEndOffset - streamPosition;
     }
 }
@@ -3,89 +3,396 @@ package kr.jclab.javautils.asn1streamreader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
-public class QueueInputStream extends InputStream {
-    private final LinkedBlockingDeque<ByteBuffer> queue = new LinkedBlockingDeque<>();
+/**
+ * Chunk queue between a producer and a single consumer.
+ *
+ * Producers may call offer/put from any thread. All read methods, drainTo and awaitAvailable
+ * must be called from one consumer thread at a time; they do not take any lock.
+ * Written arrays and buffers are queued without being copied.
+ *
+ * The queue may be bounded by a byte capacity. A chunk counts against the capacity until the
+ * consumer has read all of it. A chunk larger than the capacity is still accepted when the queue is empty.
+ */
+public class QueueInputStream extends InputStream implements AwaitableInputStream {
+    public interface WritabilityListener {
+        /**
+         * Called with false when the queue reaches its capacity, and with true once it has drained
+         * to the resume threshold. Called on a producer or consumer thread, one call at a time,
+         * alternating between false and true. The last call matches isWritable().
+         */
+        void onWritabilityChanged(boolean writable);
+    }
+
+    private final ConcurrentLinkedQueue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
     private final AtomicLong queuedBytes = new AtomicLong(0);
+    private final long capacity;
+    private final long resumeThreshold;
+
+    private ByteBuffer current = null;
+    private int currentLength = 0;
+    private volatile Thread waiter = null;
+    private volatile boolean closed = false;
+
+    private final AtomicBoolean writable = new AtomicBoolean(true);
+    private volatile WritabilityListener writabilityListener = null;
+    private final Object writabilityLock = new Object();
+    private boolean deliveredWritable = true;
+    private final Object capacityLock = new Object();
+    private final AtomicInteger capacityWaiters = new AtomicInteger(0);
 
     public QueueInputStream() {
+        this(Long.MAX_VALUE);
+    }
+
+    public QueueInputStream(long capacity) {
+        this(capacity, capacity / 2);
+    }
+
+    public QueueInputStream(long capacity, long resumeThreshold) {
         super();
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (resumeThreshold < 0 || resumeThreshold >= capacity) {
+            throw new IllegalArgumentException("resumeThreshold must be in [0, capacity)");
+        }
+        this.capacity = capacity;
+        this.resumeThreshold = resumeThreshold;
     }
 
-    public boolean offer(byte[] b, int off, int len) {
-        ByteBuffer byteBuffer = ByteBuffer.wrap(b, off, len);
-        if(this.queue.offerLast(byteBuffer)) {
-            this.queuedBytes.addAndGet(byteBuffer.remaining());
+    public long getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Bytes held by the queue, including the unread part of the chunk being consumed.
+     */
+    public long getQueuedBytes() {
+        return this.queuedBytes.get();
+    }
+
+    public boolean isWritable() {
+        return this.writable.get();
+    }
+
+    public void setWritabilityListener(WritabilityListener writabilityListener) {
+        this.writabilityListener = writabilityListener;
+    }
+
+    private boolean reserve(int length) {
+        long queued;
+        do {
+            queued = this.queuedBytes.get();
+            if (queued > 0 && queued + length > this.capacity) {
+                return false;
+            }
+        } while (!this.queuedBytes.compareAndSet(queued, queued + length));
+        if (queued + length >= this.capacity) {
+            this.updateWritability(false);
+        }
+        return true;
+    }
+
+    private void release(int length) {
+        long queued = this.queuedBytes.addAndGet(-length);
+        if (queued <= this.resumeThreshold) {
+            this.updateWritability(true);
+        }
+        if (this.capacityWaiters.get() > 0) {
+            synchronized (this.capacityLock) {
+                this.capacityLock.notifyAll();
+            }
+        }
+    }
+
+    private void updateWritability(boolean writable) {
+        if (!this.writable.compareAndSet(!writable, writable)) {
+            return;
+        }
+        if (!writable && this.queuedBytes.get() <= this.resumeThreshold) {
+            // The consumer drained the queue while we were marking it full
+            this.writable.compareAndSet(false, true);
+        }
+        this.deliverWritability();
+    }
+
+    /**
+     * Reports the current state until the listener has seen the latest one, so that changes racing
+     * between producer and consumer can not leave the listener with a stale state.
+     */
+    private void deliverWritability() {
+        synchronized (this.writabilityLock) {
+            boolean writable;
+            while ((writable = this.writable.get()) != this.deliveredWritable) {
+                this.deliveredWritable = writable;
+                WritabilityListener listener = this.writabilityListener;
+                if (listener != null) {
+                    listener.onWritabilityChanged(writable);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues the buffer if it fits in the remaining capacity.
+     *
+     * @return false if the queue is full or closed
+     */
+    public boolean offer(ByteBuffer byteBuffer) {
+        if (this.closed) {
+            return false;
+        }
+        int length = byteBuffer.remaining();
+        if (length == 0) {
             return true;
         }
-        return false;
+        if (!this.reserve(length)) {
+            return false;
+        }
+        this.queue.offer(byteBuffer);
+        this.signalAvailable();
+        return true;
+    }
+
+    public boolean offer(byte[] b, int off, int len) {
+        return this.offer(ByteBuffer.wrap(b, off, len));
     }
 
     public boolean offer(byte[] b) {
         return this.offer(b, 0, b.length);
     }
 
+    /**
+     * Queues the buffer, waiting for capacity if the queue is full.
+     *
+     * @throws IllegalStateException if the stream is closed, also while waiting
+     */
+    public void put(ByteBuffer byteBuffer) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (this.offer(byteBuffer)) {
+            return;
+        }
+        this.capacityWaiters.incrementAndGet();
+        try {
+            synchronized (this.capacityLock) {
+                while (!this.offer(byteBuffer)) {
+                    if (this.closed) {
+                        throw new IllegalStateException("Already closed stream");
+                    }
+                    this.capacityLock.wait();
+                }
+            }
+        } finally {
+            this.capacityWaiters.decrementAndGet();
+        }
+    }
+
     public void put(byte[] b, int off, int len) throws InterruptedException {
-        ByteBuffer byteBuffer = ByteBuffer.wrap(b, off, len);
-        this.queue.putLast(byteBuffer);
-        this.queuedBytes.addAndGet(byteBuffer.remaining());
+        this.put(ByteBuffer.wrap(b, off, len));
     }
 
     public void put(byte[] b) throws InterruptedException {
         this.put(b, 0, b.length);
     }
 
+    /**
+     * Returns the chunk to read from, or null if nothing is queued. Consumer thread only.
+     */
+    private ByteBuffer currentChunk() {
+        ByteBuffer chunk = this.current;
+        if (chunk != null && chunk.hasRemaining()) {
+            return chunk;
+        }
+        this.releaseCurrent();
+        chunk = this.queue.poll();
+        if (chunk != null) {
+            this.current = chunk;
+            this.currentLength = chunk.remaining();
+        }
+        return chunk;
+    }
+
+    /**
+     * Returns the capacity held by the current chunk once it has been fully read. Consumer thread only.
+     */
+    private void releaseCurrent() {
+        ByteBuffer chunk = this.current;
+        if (chunk != null && !chunk.hasRemaining()) {
+            this.current = null;
+            this.release(this.currentLength);
+            this.currentLength = 0;
+        }
+    }
+
+    /**
+     * Returns the chunk to read from, blocking until one is queued. Returns null once closed and drained.
+     */
+    private ByteBuffer awaitChunk() throws IOException {
+        ByteBuffer chunk;
+        while ((chunk = this.currentChunk()) == null) {
+            if (this.closed && this.queue.isEmpty()) {
+                return null;
+            }
+            try {
+                this.awaitAvailable(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+        return chunk;
+    }
+
     @Override
     public int read() throws IOException {
-        try {
-            synchronized (this) {
-                ByteBuffer byteBuffer = this.queue.takeFirst();
-                int value = byteBuffer.get() & 0xff;
-                this.queuedBytes.decrementAndGet();
-                if(byteBuffer.hasRemaining()) {
-                    this.queue.putFirst(byteBuffer);
-                }
-                return value;
-            }
-        } catch (InterruptedException e) {
-            throw new IOException(e);
+        ByteBuffer chunk = this.awaitChunk();
+        if (chunk == null) {
+            return -1;
         }
+        int value = chunk.get() & 0xff;
+        if (!chunk.hasRemaining()) {
+            this.releaseCurrent();
+        }
+        return value;
     }
 
+    /**
+     * Reads the bytes that are available, blocking only while nothing is queued.
+     */
     @Override
     public int read(byte[] b, int off, int len) throws IOException {
-        try {
-            ByteBuffer outputBuffer = ByteBuffer.wrap(b, off, len);
-            synchronized (this) {
-                while(outputBuffer.hasRemaining()) {
-                    ByteBuffer byteBuffer = this.queue.takeFirst();
-                    int readBytes = copyBuffer(byteBuffer, outputBuffer, outputBuffer.remaining());
-                    this.queuedBytes.addAndGet(-readBytes);
-                    if(byteBuffer.hasRemaining()) {
-                        this.queue.putFirst(byteBuffer);
-                    }
-                }
-                outputBuffer.flip();
-                return outputBuffer.remaining();
+        if (len == 0) {
+            return 0;
+        }
+        ByteBuffer chunk = this.awaitChunk();
+        if (chunk == null) {
+            return -1;
+        }
+        int total = 0;
+        do {
+            int length = Math.min(chunk.remaining(), len - total);
+            chunk.get(b, off + total, length);
+            total += length;
+        } while (total < len && (chunk = this.currentChunk()) != null);
+        this.releaseCurrent();
+        return total;
+    }
+
+    /**
+     * Moves as many queued bytes as fit into dest without blocking.
+     *
+     * @return number of bytes transferred, or -1 if the stream is closed and drained
+     */
+    public int drainTo(ByteBuffer dest) {
+        int total = 0;
+        ByteBuffer chunk;
+        while (dest.hasRemaining() && (chunk = this.currentChunk()) != null) {
+            int length = Math.min(chunk.remaining(), dest.remaining());
+            if (length == chunk.remaining()) {
+                dest.put(chunk);
+            } else {
+                ByteBuffer view = chunk.duplicate();
+                view.limit(view.position() + length);
+                dest.put(view);
+                chunk.position(chunk.position() + length);
             }
-        } catch (InterruptedException e) {
-            throw new IOException(e);
+            total += length;
+        }
+        this.releaseCurrent();
+        if (total == 0 && this.closed && this.currentChunk() == null) {
+            return -1;
+        }
+        return total;
+    }
+
+    /**
+     * Skips queued bytes without blocking.
+     */
+    @Override
+    public long skip(long n) {
+        long total = 0;
+        ByteBuffer chunk;
+        while (total < n && (chunk = this.currentChunk()) != null) {
+            int length = (int) Math.min(chunk.remaining(), n - total);
+            chunk.position(chunk.position() + length);
+            total += length;
         }
+        this.releaseCurrent();
+        return total;
     }
 
     @Override
     public int available() throws IOException {
-        long available = this.queuedBytes.get();
+        long available = this.unreadBytes();
         if(available > Integer.MAX_VALUE) {
             return Integer.MAX_VALUE;
         }
         return (int)available;
     }
 
+    @Override
+    public boolean awaitAvailable(long timeout, TimeUnit unit) throws InterruptedException {
+        if (this.hasAvailable()) {
+            return true;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        this.waiter = Thread.currentThread();
+        try {
+            while (!this.hasAvailable() && !this.closed) {
+                long remainingNs = deadline - System.nanoTime();
+                if (remainingNs <= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, remainingNs);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            this.waiter = null;
+        }
+        return this.hasAvailable();
+    }
+
+    @Override
+    public boolean isDrained() {
+        return this.closed && !this.hasAvailable();
+    }
+
+    private long unreadBytes() {
+        ByteBuffer chunk = this.current;
+        long consumed = (chunk != null) ? (this.currentLength - chunk.remaining()) : 0;
+        return this.queuedBytes.get() - consumed;
+    }
+
+    private boolean hasAvailable() {
+        return this.unreadBytes() > 0;
+    }
+
+    private void signalAvailable() {
+        Thread waiter = this.waiter;
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
     @Override
     public void close() throws IOException {
+        this.closed = true;
+        this.signalAvailable();
+        if (this.capacityWaiters.get() > 0) {
+            synchronized (this.capacityLock) {
+                this.capacityLock.notifyAll();
+            }
+        }
         super.close();
     }
 
@@ -103,13 +410,4 @@ public class QueueInputStream extends InputStream {
     public boolean markSupported() {
         return false;
     }
-
-    private static int copyBuffer(ByteBuffer src, ByteBuffer dest, int length) {
-        int srcRemaining = src.remaining();
-        int available = (srcRemaining > length) ? length : srcRemaining;
-        byte[] buffer = new byte[available];
-        src.get(buffer);
-        dest.put(buffer);
-        return available;
-    }
 }
@@ -0,0 +1,46 @@
+package kr.jclab.javautils.asn1streamreader.decoder;
+
+import kr.jclab.javautils.asn1streamreader.Asn1ObjectDecoder;
+import kr.jclab.javautils.asn1streamreader.Asn1ReadResult;
+import kr.jclab.javautils.asn1streamreader.internal.ByteBufferInputStream;
+import org.bouncycastle.asn1.ASN1InputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes elements into BouncyCastle ASN1Primitive objects.
+ * bcprov is an optional dependency and has to be on the classpath to use this decoder.
+ */
+public class BouncyCastleObjectDecoder implements Asn1ObjectDecoder {
+    private static final String PROBE_CLASS = "org.bouncycastle.asn1.ASN1InputStream";
+
+    /**
+     * Whether BouncyCastle can be loaded by the class loader of this library.
+     */
+    public static boolean isAvailable() {
+        try {
+            Class.forName(PROBE_CLASS, false, BouncyCastleObjectDecoder.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @Override
+    public Object decode(Asn1ReadResult result) throws IOException {
+        ASN1InputStream asn1InputStream;
+        if (result.isRawSlice()) {
+            ByteBuffer raw = result.getRawByteBuffer();
+            asn1InputStream = new ASN1InputStream(new ByteBufferInputStream(raw), raw.remaining());
+        } else {
+            asn1InputStream = new ASN1InputStream(new ByteArrayInputStream(result.getRawBuffer()));
+        }
+        try {
+            return asn1InputStream.readObject();
+        } finally {
+            asn1InputStream.close();
+        }
+    }
+}
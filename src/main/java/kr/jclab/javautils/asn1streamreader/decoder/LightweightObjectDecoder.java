@@ -0,0 +1,292 @@
+package kr.jclab.javautils.asn1streamreader.decoder;
+
+import kr.jclab.javautils.asn1streamreader.Asn1ObjectDecoder;
+import kr.jclab.javautils.asn1streamreader.Asn1ReadResult;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Decodes universal primitive scalars straight from the raw bytes into JDK types:
+ * <ul>
+ *     <li>BOOLEAN: Boolean</li>
+ *     <li>INTEGER, ENUMERATED: Long, or BigInteger if the value does not fit</li>
+ *     <li>OBJECT IDENTIFIER, RELATIVE-OID: dotted String</li>
+ *     <li>character strings: String</li>
+ *     <li>UTCTime, GeneralizedTime: OffsetDateTime, or LocalDateTime for a GeneralizedTime without zone</li>
+ * </ul>
+ * Other elements, including constructed (BER) strings, are passed to the fallback decoder,
+ * or decoded to null without one.
+ */
+public class LightweightObjectDecoder implements Asn1ObjectDecoder {
+    private static final int TAG_BOOLEAN = 0x01;
+    private static final int TAG_INTEGER = 0x02;
+    private static final int TAG_OBJECT_IDENTIFIER = 0x06;
+    private static final int TAG_ENUMERATED = 0x0a;
+    private static final int TAG_UTF8_STRING = 0x0c;
+    private static final int TAG_RELATIVE_OID = 0x0d;
+    private static final int TAG_NUMERIC_STRING = 0x12;
+    private static final int TAG_PRINTABLE_STRING = 0x13;
+    private static final int TAG_T61_STRING = 0x14;
+    private static final int TAG_VIDEOTEX_STRING = 0x15;
+    private static final int TAG_IA5_STRING = 0x16;
+    private static final int TAG_UTC_TIME = 0x17;
+    private static final int TAG_GENERALIZED_TIME = 0x18;
+    private static final int TAG_GRAPHIC_STRING = 0x19;
+    private static final int TAG_VISIBLE_STRING = 0x1a;
+    private static final int TAG_GENERAL_STRING = 0x1b;
+    private static final int TAG_UNIVERSAL_STRING = 0x1c;
+    private static final int TAG_BMP_STRING = 0x1e;
+
+    private static final Charset UTF_32BE = Charset.forName("UTF-32BE");
+
+    private final Asn1ObjectDecoder fallback;
+
+    public LightweightObjectDecoder() {
+        this(null);
+    }
+
+    /**
+     * @param fallback decoder for the elements this decoder does not handle, may be null
+     */
+    public LightweightObjectDecoder(Asn1ObjectDecoder fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Object decode(Asn1ReadResult result) throws IOException {
+        if (result.getTagClass() != Asn1ReadResult.TAG_CLASS_UNIVERSAL || result.isTagConstructed() || result.isIndefiniteLength()) {
+            return this.decodeFallback(result);
+        }
+        ByteBuffer raw = result.getRawByteBuffer();
+        int offset = raw.position() + result.getHeaderLength();
+        int length = (int) result.getContentLength();
+        switch (result.getTagNumber()) {
+            case TAG_BOOLEAN:
+                if (length != 1) {
+                    throw new IOException("BOOLEAN with " + length + " content bytes at position " + result.getOffset());
+                }
+                return raw.get(offset) != 0;
+            case TAG_INTEGER:
+            case TAG_ENUMERATED:
+                return decodeInteger(raw, offset, length, result);
+            case TAG_OBJECT_IDENTIFIER:
+                return decodeOid(raw, offset, length, true, result);
+            case TAG_RELATIVE_OID:
+                return decodeOid(raw, offset, length, false, result);
+            case TAG_UTF8_STRING:
+                return decodeString(result, raw, offset, length, StandardCharsets.UTF_8);
+            case TAG_NUMERIC_STRING:
+            case TAG_PRINTABLE_STRING:
+            case TAG_IA5_STRING:
+            case TAG_VISIBLE_STRING:
+                return decodeString(result, raw, offset, length, StandardCharsets.US_ASCII);
+            case TAG_T61_STRING:
+            case TAG_VIDEOTEX_STRING:
+            case TAG_GRAPHIC_STRING:
+            case TAG_GENERAL_STRING:
+                return decodeString(result, raw, offset, length, StandardCharsets.ISO_8859_1);
+            case TAG_BMP_STRING:
+                return decodeString(result, raw, offset, length, StandardCharsets.UTF_16BE);
+            case TAG_UNIVERSAL_STRING:
+                return decodeString(result, raw, offset, length, UTF_32BE);
+            case TAG_UTC_TIME:
+                return decodeTime(raw, offset, length, true, result);
+            case TAG_GENERALIZED_TIME:
+                return decodeTime(raw, offset, length, false, result);
+            default:
+                return this.decodeFallback(result);
+        }
+    }
+
+    private Object decodeFallback(Asn1ReadResult result) throws IOException {
+        return (this.fallback != null) ? this.fallback.decode(result) : null;
+    }
+
+    private static Object decodeInteger(ByteBuffer raw, int offset, int length, Asn1ReadResult result) throws IOException {
+        if (length == 0) {
+            throw new IOException("Empty INTEGER at position " + result.getOffset());
+        }
+        if (length > 8) {
+            byte[] content = new byte[length];
+            for (int i = 0; i < length; i++) {
+                content[i] = raw.get(offset + i);
+            }
+            return new BigInteger(content);
+        }
+        // Sign-extend from the first byte
+        long value = raw.get(offset);
+        for (int i = 1; i < length; i++) {
+            value = (value << 8) | (raw.get(offset + i) & 0xff);
+        }
+        return value;
+    }
+
+    private static String decodeOid(ByteBuffer raw, int offset, int length, boolean absolute, Asn1ReadResult result) throws IOException {
+        if (length == 0 || (raw.get(offset + length - 1) & 0x80) != 0) {
+            throw new IOException("Malformed OBJECT IDENTIFIER at position " + result.getOffset());
+        }
+        StringBuilder sb = new StringBuilder(length * 3);
+        boolean first = absolute;
+        int end = offset + length;
+        int position = offset;
+        while (position < end) {
+            int arcStart = position;
+            long value = 0;
+            boolean big = false;
+            int b;
+            do {
+                b = raw.get(position++);
+                if (value > (Long.MAX_VALUE >>> 7)) {
+                    big = true;
+                }
+                value = (value << 7) | (b & 0x7f);
+            } while ((b & 0x80) != 0);
+
+            if (big) {
+                BigInteger bigValue = BigInteger.ZERO;
+                for (int i = arcStart; i < position; i++) {
+                    bigValue = bigValue.shiftLeft(7).or(BigInteger.valueOf(raw.get(i) & 0x7f));
+                }
+                if (first) {
+                    sb.append("2.").append(bigValue.subtract(BigInteger.valueOf(80)));
+                } else {
+                    appendSeparator(sb).append(bigValue);
+                }
+            } else if (first) {
+                int root = (value < 80) ? (int) (value / 40) : 2;
+                sb.append(root).append('.').append(value - root * 40L);
+            } else {
+                appendSeparator(sb).append(value);
+            }
+            first = false;
+        }
+        return sb.toString();
+    }
+
+    private static StringBuilder appendSeparator(StringBuilder sb) {
+        if (sb.length() > 0) {
+            sb.append('.');
+        }
+        return sb;
+    }
+
+    private static String decodeString(Asn1ReadResult result, ByteBuffer raw, int offset, int length, Charset charset) {
+        if (!result.isRawSlice()) {
+            // The result owns its raw array, so the string is decoded from it without a copy
+            return new String(result.getRawBuffer(), result.getHeaderLength(), length, charset);
+        }
+        byte[] content = new byte[length];
+        ByteBuffer view = raw.duplicate();
+        view.position(offset);
+        view.get(content);
+        return new String(content, charset);
+    }
+
+    /**
+     * UTCTime is YYMMDDhhmm[ss] followed by Z or +-hhmm; years below 50 are 20xx (RFC 5280).
+     * GeneralizedTime is YYYYMMDDhh[mm[ss[.fff]]] optionally followed by Z or +-hh[mm].
+     */
+    private static Object decodeTime(ByteBuffer raw, int offset, int length, boolean utc, Asn1ReadResult result) throws IOException {
+        int end = offset + length;
+        int position = offset;
+        try {
+            int year;
+            if (utc) {
+                year = digits(raw, position, 2, end);
+                year += (year < 50) ? 2000 : 1900;
+                position += 2;
+            } else {
+                year = digits(raw, position, 4, end);
+                position += 4;
+            }
+            int month = digits(raw, position, 2, end);
+            int day = digits(raw, position + 2, 2, end);
+            int hour = digits(raw, position + 4, 2, end);
+            position += 6;
+            int minute = 0;
+            int second = 0;
+            int nano = 0;
+            if (position < end && isDigit(raw.get(position))) {
+                minute = digits(raw, position, 2, end);
+                position += 2;
+                if (position < end && isDigit(raw.get(position))) {
+                    second = digits(raw, position, 2, end);
+                    position += 2;
+                    if (!utc && position < end && (raw.get(position) == '.' || raw.get(position) == ',')) {
+                        position++;
+                        int scale = 100000000;
+                        int fractionStart = position;
+                        while (position < end && isDigit(raw.get(position))) {
+                            nano += (raw.get(position) - '0') * scale;
+                            scale /= 10;
+                            position++;
+                        }
+                        if (position == fractionStart) {
+                            throw new IOException("Empty fraction");
+                        }
+                    }
+                }
+            } else if (utc) {
+                throw new IOException("Missing minutes");
+            }
+
+            LocalDateTime localDateTime = LocalDateTime.of(year, month, day, hour, minute, second, nano);
+            if (position == end) {
+                if (utc) {
+                    throw new IOException("Missing zone");
+                }
+                return localDateTime;
+            }
+            byte zone = raw.get(position++);
+            ZoneOffset zoneOffset;
+            if (zone == 'Z') {
+                zoneOffset = ZoneOffset.UTC;
+            } else if (zone == '+' || zone == '-') {
+                int offsetHours = digits(raw, position, 2, end);
+                position += 2;
+                int offsetMinutes = 0;
+                if (position < end) {
+                    offsetMinutes = digits(raw, position, 2, end);
+                    position += 2;
+                }
+                int sign = (zone == '-') ? -1 : 1;
+                zoneOffset = ZoneOffset.ofHoursMinutes(sign * offsetHours, sign * offsetMinutes);
+            } else {
+                throw new IOException("Unexpected zone character");
+            }
+            if (position != end) {
+                throw new IOException("Trailing characters");
+            }
+            return OffsetDateTime.of(localDateTime, zoneOffset);
+        } catch (IOException | DateTimeException e) {
+            throw new IOException("Malformed " + (utc ? "UTCTime" : "GeneralizedTime") + " at position " + result.getOffset() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean isDigit(byte value) {
+        return value >= '0' && value <= '9';
+    }
+
+    private static int digits(ByteBuffer raw, int position, int count, int end) throws IOException {
+        if (position + count > end) {
+            throw new IOException("Truncated");
+        }
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            byte digit = raw.get(position + i);
+            if (!isDigit(digit)) {
+                throw new IOException("Unexpected character");
+            }
+            value = value * 10 + (digit - '0');
+        }
+        return value;
+    }
+}
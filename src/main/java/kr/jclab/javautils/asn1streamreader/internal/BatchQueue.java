@@ -0,0 +1,158 @@
+package kr.jclab.javautils.asn1streamreader.internal;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * Blocking queue that takes and hands out whole batches under a single lock acquisition.
+ * With a weigher it also keeps the total weight of the queued items.
+ */
+public class BatchQueue<T> {
+    private final ArrayDeque<T> items = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final ToLongFunction<? super T> weigher;
+    private long weight = 0;
+
+    public BatchQueue() {
+        this(null);
+    }
+
+    public BatchQueue(ToLongFunction<? super T> weigher) {
+        this.weigher = weigher;
+    }
+
+    private void added(T item) {
+        if (this.weigher != null) {
+            this.weight += this.weigher.applyAsLong(item);
+        }
+    }
+
+    private T removed(T item) {
+        if (this.weigher != null && item != null) {
+            this.weight -= this.weigher.applyAsLong(item);
+        }
+        return item;
+    }
+
+    public void add(T item) {
+        this.lock.lock();
+        try {
+            this.items.addLast(item);
+            this.added(item);
+            this.notEmpty.signal();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public void addAll(Collection<? extends T> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        this.lock.lock();
+        try {
+            this.items.addAll(batch);
+            for (T item : batch) {
+                this.added(item);
+            }
+            this.notEmpty.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public void clear() {
+        this.lock.lock();
+        try {
+            this.items.clear();
+            this.weight = 0;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public T poll() {
+        this.lock.lock();
+        try {
+            return this.removed(this.items.pollFirst());
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingNs = unit.toNanos(timeout);
+        this.lock.lockInterruptibly();
+        try {
+            while (this.items.isEmpty()) {
+                if (remainingNs <= 0) {
+                    return null;
+                }
+                remainingNs = this.notEmpty.awaitNanos(remainingNs);
+            }
+            return this.removed(this.items.pollFirst());
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public T take() throws InterruptedException {
+        this.lock.lockInterruptibly();
+        try {
+            while (this.items.isEmpty()) {
+                this.notEmpty.await();
+            }
+            return this.removed(this.items.pollFirst());
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Moves up to maxElements items to dest without blocking.
+     */
+    public int drainTo(Collection<? super T> dest, int maxElements) {
+        this.lock.lock();
+        try {
+            int count = 0;
+            T item;
+            while (count < maxElements && (item = this.removed(this.items.pollFirst())) != null) {
+                dest.add(item);
+                count++;
+            }
+            return count;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public int size() {
+        this.lock.lock();
+        try {
+            return this.items.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Total weight of the queued items, 0 without a weigher.
+     */
+    public long weight() {
+        this.lock.lock();
+        try {
+            return this.weight;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+}
@@ -0,0 +1,46 @@
+package kr.jclab.javautils.asn1streamreader.internal;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+public class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+        if (!this.buffer.hasRemaining()) {
+            return -1;
+        }
+        return this.buffer.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        int remaining = this.buffer.remaining();
+        if (remaining <= 0) {
+            return -1;
+        }
+        int length = Math.min(len, remaining);
+        this.buffer.get(b, off, length);
+        return length;
+    }
+
+    @Override
+    public long skip(long n) {
+        int length = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+        this.buffer.position(this.buffer.position() + length);
+        return length;
+    }
+
+    @Override
+    public int available() {
+        return this.buffer.remaining();
+    }
+}
@@ -1,7 +1,6 @@
 package kr.jclab.javautils.asn1streamreader.internal;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
 
 public class ByteBufferReadBuffer implements ReadBuffer {
     private final ByteBuffer backendBuffer;
@@ -48,12 +47,44 @@ public class ByteBufferReadBuffer implements ReadBuffer {
     }
 
     @Override
-    public void readBufferTo(ArrayList<Byte> list, int length) {
-        byte[] buffer = new byte[length];
-        this.readBufferTo(buffer);
-        list.ensureCapacity(list.size() + buffer.length);
-        for(byte b : buffer) {
-            list.add(b);
+    public void readBufferTo(GrowableByteArray dest, int length) {
+        int size = dest.size();
+        dest.ensureCapacity(size + length);
+        backendBuffer.get(dest.array(), size, length);
+        dest.setSize(size + length);
+        if(afterReadHandler != null) {
+            afterReadHandler.afterReadHandler(length);
+        }
+    }
+
+    @Override
+    public void skip(int length) {
+        backendBuffer.position(backendBuffer.position() + length);
+        if(afterReadHandler != null) {
+            afterReadHandler.afterReadHandler(length);
         }
     }
+
+    @Override
+    public boolean isSliceable() {
+        return true;
+    }
+
+    @Override
+    public int position() {
+        return backendBuffer.position();
+    }
+
+    @Override
+    public ByteBuffer slice(int start, int end) {
+        ByteBuffer view = backendBuffer.duplicate();
+        view.limit(end);
+        view.position(start);
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public ByteBuffer peek() {
+        return backendBuffer;
+    }
 }
@@ -0,0 +1,191 @@
+package kr.jclab.javautils.asn1streamreader.internal;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+
+/**
+ * Reads from a channel through one reusable buffer. The buffer is kept in read mode between calls,
+ * so bytes that were read ahead stay available to the next parse.
+ */
+public class ChannelReadBuffer implements ReadBuffer {
+    private ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private boolean nonBlocking = false;
+    private boolean eof = false;
+    private ReadBufferAfterReadHandler afterReadHandler = null;
+
+    public void setAfterReadHandler(ReadBufferAfterReadHandler handler) {
+        this.afterReadHandler = handler;
+    }
+
+    public ChannelReadBuffer(ReadableByteChannel channel, int bufferSize, boolean direct) {
+        this.channel = channel;
+        this.buffer = direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+        this.buffer.flip();
+    }
+
+    /**
+     * Switches to another channel, dropping bytes that were read ahead from the previous one.
+     */
+    public void reset(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer.clear();
+        this.buffer.flip();
+        this.nonBlocking = false;
+        this.eof = false;
+    }
+
+    public ReadableByteChannel getChannel() {
+        return this.channel;
+    }
+
+    /**
+     * On a blocking channel, a non-blocking read only consumes bytes that are already buffered.
+     * A channel in non-blocking mode is always read without blocking.
+     */
+    public void setNonBlocking(boolean nonBlocking) {
+        this.nonBlocking = nonBlocking;
+    }
+
+    public boolean isEof() {
+        return this.eof && !this.buffer.hasRemaining();
+    }
+
+    private boolean isChannelNonBlocking() {
+        return (this.channel instanceof SelectableChannel) && !((SelectableChannel) this.channel).isBlocking();
+    }
+
+    /**
+     * Reads more bytes from the channel into the free space of the buffer.
+     *
+     * @return number of bytes read, 0 if none were ready, -1 at end of stream
+     */
+    public int fill() throws IOException {
+        if (this.eof) {
+            return -1;
+        }
+        this.buffer.compact();
+        int readLength;
+        try {
+            readLength = this.channel.read(this.buffer);
+        } finally {
+            this.buffer.flip();
+        }
+        if (readLength < 0) {
+            this.eof = true;
+        }
+        return readLength;
+    }
+
+    private void fillBlocking() throws IOException {
+        while (!this.buffer.hasRemaining()) {
+            if (this.fill() < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private void consumed(int length) {
+        if(afterReadHandler != null) {
+            afterReadHandler.afterReadHandler(length);
+        }
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return this.nonBlocking || this.isChannelNonBlocking();
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (!this.buffer.hasRemaining() && this.isChannelNonBlocking()) {
+            this.fill();
+        }
+        return this.buffer.remaining();
+    }
+
+    @Override
+    public boolean available(int length) throws IOException {
+        return !this.isNonBlocking() || this.available() >= length;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        this.fillBlocking();
+        byte value = this.buffer.get();
+        this.consumed(1);
+        return value;
+    }
+
+    @Override
+    public void readBufferTo(byte[] buffer) throws IOException {
+        this.readBufferTo(buffer, 0, buffer.length);
+    }
+
+    private void readBufferTo(byte[] dest, int offset, int length) throws IOException {
+        int position = offset;
+        int end = offset + length;
+        while (position < end) {
+            int remaining = end - position;
+            if (!this.buffer.hasRemaining() && remaining >= this.buffer.capacity()) {
+                // Large reads go straight into the destination array
+                int readLength = this.channel.read(ByteBuffer.wrap(dest, position, remaining));
+                if (readLength < 0) {
+                    this.eof = true;
+                    throw new EOFException();
+                }
+                position += readLength;
+                this.consumed(readLength);
+                continue;
+            }
+            this.fillBlocking();
+            int readLength = Math.min(remaining, this.buffer.remaining());
+            this.buffer.get(dest, position, readLength);
+            position += readLength;
+            this.consumed(readLength);
+        }
+    }
+
+    @Override
+    public void readBufferTo(GrowableByteArray dest, int length) throws IOException {
+        int size = dest.size();
+        dest.ensureCapacity(size + length);
+        this.readBufferTo(dest.array(), size, length);
+        dest.setSize(size + length);
+    }
+
+    @Override
+    public void skip(int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            this.fillBlocking();
+            int skipped = Math.min(remaining, this.buffer.remaining());
+            this.buffer.position(this.buffer.position() + skipped);
+            remaining -= skipped;
+            this.consumed(skipped);
+        }
+    }
+
+    @Override
+    public boolean isSliceable() {
+        return false;
+    }
+
+    @Override
+    public int position() {
+        return -1;
+    }
+
+    @Override
+    public ByteBuffer slice(int start, int end) {
+        throw new UnsupportedOperationException("Channel buffer is reused and can not be sliced");
+    }
+
+    @Override
+    public ByteBuffer peek() {
+        return this.buffer;
+    }
+}
@@ -0,0 +1,79 @@
+package kr.jclab.javautils.asn1streamreader.internal;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class GrowableByteArray {
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private byte[] buffer;
+    private int size = 0;
+
+    public GrowableByteArray(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void setSize(int size) {
+        if (size < 0 || size > this.buffer.length) {
+            throw new IndexOutOfBoundsException("size: " + size + ", capacity: " + this.buffer.length);
+        }
+        this.size = size;
+    }
+
+    public int capacity() {
+        return this.buffer.length;
+    }
+
+    public byte[] array() {
+        return this.buffer;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Required capacity overflows");
+        }
+        if (minCapacity <= this.buffer.length) {
+            return;
+        }
+        int newCapacity = this.buffer.length << 1;
+        if (newCapacity < 0 || newCapacity > MAX_ARRAY_SIZE) {
+            newCapacity = MAX_ARRAY_SIZE;
+        }
+        if (newCapacity < minCapacity) {
+            newCapacity = minCapacity;
+        }
+        this.buffer = Arrays.copyOf(this.buffer, newCapacity);
+    }
+
+    public void append(byte b) {
+        if (this.size == this.buffer.length) {
+            this.ensureCapacity(this.size + 1);
+        }
+        this.buffer[this.size++] = b;
+    }
+
+    public void append(byte[] src, int offset, int length) {
+        this.ensureCapacity(this.size + length);
+        System.arraycopy(src, offset, this.buffer, this.size, length);
+        this.size += length;
+    }
+
+    public void append(ByteBuffer src) {
+        int length = src.remaining();
+        this.ensureCapacity(this.size + length);
+        src.get(this.buffer, this.size, length);
+        this.size += length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.buffer, this.size);
+    }
+}
@@ -0,0 +1,127 @@
+package kr.jclab.javautils.asn1streamreader.internal;
+
+import java.util.ArrayDeque;
+
+/**
+ * Pool of growable buffers kept in power-of-two size classes.
+ *
+ * A buffer is taken with {@link #acquire()} before the size of what it will hold is known, which
+ * gives the smallest pooled one. Once the size is known, {@link #resize(GrowableByteArray, int)}
+ * trades it for a pooled buffer of the matching class, so a buffer that grew for a large element is
+ * handed out again for a large element and not held by a small one.
+ */
+public class GrowableByteArrayPool {
+    public static final int DEFAULT_INITIAL_CAPACITY = 16;
+    public static final int DEFAULT_MAX_POOLED = 4;
+    public static final int DEFAULT_MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private final ArrayDeque<GrowableByteArray>[] sizeClasses;
+    private final int initialCapacity;
+    private final int maxPooled;
+    private final int maxRetainedCapacity;
+
+    public GrowableByteArrayPool() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_POOLED, DEFAULT_MAX_RETAINED_CAPACITY);
+    }
+
+    /**
+     * @param maxPooled maximum number of idle buffers kept per size class
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public GrowableByteArrayPool(int initialCapacity, int maxPooled, int maxRetainedCapacity) {
+        this.initialCapacity = initialCapacity;
+        this.maxPooled = maxPooled;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+        this.sizeClasses = new ArrayDeque[sizeClassOf(Math.max(maxRetainedCapacity, initialCapacity)) + 1];
+        for (int i = 0; i < this.sizeClasses.length; i++) {
+            this.sizeClasses[i] = new ArrayDeque<>();
+        }
+    }
+
+    private int sizeClassOf(int capacity) {
+        int base = 31 - Integer.numberOfLeadingZeros(Math.max(this.initialCapacity, 1));
+        int bits = 31 - Integer.numberOfLeadingZeros(Math.max(capacity, 1));
+        return Math.max(bits - base, 0);
+    }
+
+    /**
+     * Smallest size class whose buffers all hold at least minCapacity bytes.
+     */
+    private int fittingSizeClassOf(int minCapacity) {
+        return (minCapacity <= this.initialCapacity) ? 0 : (this.sizeClassOf(minCapacity - 1) + 1);
+    }
+
+    private GrowableByteArray poll(int from, int to) {
+        for (int i = from; i < to; i++) {
+            GrowableByteArray buffer = this.sizeClasses[i].pollLast();
+            if (buffer != null) {
+                return buffer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the smallest pooled buffer, or a new one.
+     */
+    public GrowableByteArray acquire() {
+        return this.acquire(0);
+    }
+
+    /**
+     * Returns a pooled buffer from the smallest size class that fits minCapacity, or a new one.
+     */
+    public GrowableByteArray acquire(int minCapacity) {
+        GrowableByteArray buffer = this.poll(this.fittingSizeClassOf(minCapacity), this.sizeClasses.length);
+        return (buffer != null) ? buffer : new GrowableByteArray(Math.max(this.initialCapacity, minCapacity));
+    }
+
+    /**
+     * Trades buffer for one of the size class that fits expectedSize, keeping its contents.
+     * A buffer too small is traded for the smallest pooled one that fits, or kept and left to grow
+     * if none is pooled, so a large expectedSize allocates nothing up front. A buffer of a larger class
+     * goes back to the pool for a larger element, and a pooled or new buffer of the fitting class is returned.
+     */
+    public GrowableByteArray resize(GrowableByteArray buffer, int expectedSize) {
+        int fitting = Math.min(this.fittingSizeClassOf(expectedSize), this.sizeClasses.length - 1);
+        int current = this.sizeClassOf(buffer.capacity());
+        GrowableByteArray sized;
+        if (buffer.capacity() < expectedSize) {
+            sized = this.poll(fitting, this.sizeClasses.length);
+        } else if (current > fitting) {
+            sized = this.poll(fitting, fitting + 1);
+            if (sized == null && buffer.size() <= expectedSize) {
+                sized = new GrowableByteArray(Math.max(this.initialCapacity, expectedSize));
+            }
+        } else {
+            return buffer;
+        }
+        if (sized == null) {
+            return buffer;
+        }
+        // Past the largest class a pooled buffer may be no bigger than the one it would replace
+        if (sized.capacity() < buffer.size() || (buffer.capacity() < expectedSize && sized.capacity() <= buffer.capacity())) {
+            this.release(sized);
+            return buffer;
+        }
+        sized.append(buffer.array(), 0, buffer.size());
+        this.release(buffer);
+        return sized;
+    }
+
+    public void release(GrowableByteArray buffer) {
+        if (buffer == null) {
+            return;
+        }
+        // Huge buffers are dropped so a single large element does not pin its memory for the reader's lifetime
+        if (buffer.capacity() > this.maxRetainedCapacity) {
+            return;
+        }
+        ArrayDeque<GrowableByteArray> sizeClass = this.sizeClasses[this.sizeClassOf(buffer.capacity())];
+        if (sizeClass.size() >= this.maxPooled) {
+            return;
+        }
+        buffer.clear();
+        sizeClass.addLast(buffer);
+    }
+}
@@ -3,7 +3,7 @@ package kr.jclab.javautils.asn1streamreader.internal;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 
 public class InputStreamReadBuffer implements ReadBuffer {
     private final InputStream backendIn;
@@ -48,9 +48,14 @@ public class InputStreamReadBuffer implements ReadBuffer {
 
     @Override
     public void readBufferTo(byte[] buffer) throws IOException {
-        int position = 0;
+        this.readBufferTo(buffer, 0, buffer.length);
+    }
+
+    private void readBufferTo(byte[] buffer, int offset, int length) throws IOException {
+        int position = offset;
+        int end = offset + length;
         int remaining;
-        while((remaining = (buffer.length - position)) > 0) {
+        while((remaining = (end - position)) > 0) {
             int readLength = this.backendIn.read(buffer, position, remaining);
             if(readLength > 0) {
                 position += readLength;
@@ -64,12 +69,48 @@ public class InputStreamReadBuffer implements ReadBuffer {
     }
 
     @Override
-    public void readBufferTo(ArrayList<Byte> list, int length) throws IOException {
-        byte[] buffer = new byte[length];
-        this.readBufferTo(buffer);
-        list.ensureCapacity(list.size() + buffer.length);
-        for(byte b : buffer) {
-            list.add(b);
+    public void readBufferTo(GrowableByteArray dest, int length) throws IOException {
+        int size = dest.size();
+        dest.ensureCapacity(size + length);
+        this.readBufferTo(dest.array(), size, length);
+        dest.setSize(size + length);
+    }
+
+    @Override
+    public void skip(int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            long skipped = this.backendIn.skip(remaining);
+            if (skipped <= 0) {
+                if (this.backendIn.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            remaining -= (int) skipped;
+            if(afterReadHandler != null) {
+                afterReadHandler.afterReadHandler((int) skipped);
+            }
         }
     }
+
+    @Override
+    public boolean isSliceable() {
+        return false;
+    }
+
+    @Override
+    public int position() {
+        return -1;
+    }
+
+    @Override
+    public ByteBuffer slice(int start, int end) {
+        throw new UnsupportedOperationException("InputStream can not be sliced");
+    }
+
+    @Override
+    public ByteBuffer peek() {
+        return null;
+    }
 }
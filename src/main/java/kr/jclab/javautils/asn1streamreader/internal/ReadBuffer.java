@@ -1,7 +1,7 @@
 package kr.jclab.javautils.asn1streamreader.internal;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 
 public interface ReadBuffer {
     boolean isNonBlocking();
@@ -9,6 +9,16 @@ public interface ReadBuffer {
     boolean available(int length) throws IOException;
     byte readByte() throws IOException;
     void readBufferTo(byte[] buffer) throws IOException;
-    void readBufferTo(ArrayList<Byte> list, int length) throws IOException;
+    void readBufferTo(GrowableByteArray dest, int length) throws IOException;
+    void skip(int length) throws IOException;
+    boolean isSliceable();
+    int position();
+    ByteBuffer slice(int start, int end);
+
+    /**
+     * Bytes that are already buffered, from the next byte to read, or null if they can not be exposed.
+     * The returned buffer must not be modified; consume the bytes with skip or readBufferTo.
+     */
+    ByteBuffer peek();
     void setAfterReadHandler(ReadBufferAfterReadHandler handler);
 }
@@ -2,9 +2,9 @@ package kr.jclab.javautils.asn1streamreader.object;
 
 public class Asn1SequenceResult {
     private final boolean ber;
-    private final int size;
+    private final long size;
 
-    public Asn1SequenceResult(boolean ber, int size) {
+    public Asn1SequenceResult(boolean ber, long size) {
         this.ber = ber;
         this.size = size;
     }
@@ -13,7 +13,7 @@ public class Asn1SequenceResult {
         return ber;
     }
 
-    public int getSize() {
+    public long getSize() {
         return size;
     }
 }
@@ -0,0 +1,43 @@
+package kr.jclab.javautils.asn1streamreader.reactive;
+
+import kr.jclab.javautils.asn1streamreader.Asn1ReadResult;
+import kr.jclab.javautils.asn1streamreader.Asn1ReaderOptions;
+import kr.jclab.javautils.asn1streamreader.Asn1StreamReader;
+import org.reactivestreams.Publisher;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+
+/**
+ * Reactive Streams adapters. Requires org.reactivestreams:reactive-streams on the classpath.
+ *
+ * The publishers are unicast and end with onComplete at end of input; no EOF result is emitted.
+ */
+public final class Asn1Publishers {
+    private Asn1Publishers() {
+    }
+
+    /**
+     * Parses the buffers of the source. Input is requested one buffer at a time, and only while
+     * downstream demand is not yet met by the results already parsed.
+     * The options must not have a read callback.
+     *
+     * @throws IllegalArgumentException if the options have a read callback
+     */
+    public static Publisher<Asn1ReadResult> fromByteBuffers(Publisher<ByteBuffer> source, Asn1ReaderOptions options) {
+        // Checked here, as subscribe may only throw NullPointerException (rule 1.9)
+        if (options != null && options.hasReadCallback()) {
+            throw new IllegalArgumentException("options must not have a read callback");
+        }
+        return new ByteBufferParsingPublisher(source, options);
+    }
+
+    /**
+     * Reads from a reader in pull mode, one readObject call per requested element, on the executor.
+     * The publisher owns the reader and closes it when the subscription ends.
+     * Input that ends inside an element is signalled with onError.
+     */
+    public static Publisher<Asn1ReadResult> fromReader(Asn1StreamReader reader, Executor executor) {
+        return new ReaderPublisher(reader, executor);
+    }
+}
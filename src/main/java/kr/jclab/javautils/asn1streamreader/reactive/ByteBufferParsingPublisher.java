@@ -0,0 +1,207 @@
+package kr.jclab.javautils.asn1streamreader.reactive;
+
+import kr.jclab.javautils.asn1streamreader.Asn1Multiplexer;
+import kr.jclab.javautils.asn1streamreader.Asn1ReadResult;
+import kr.jclab.javautils.asn1streamreader.Asn1ReaderOptions;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class ByteBufferParsingPublisher implements Publisher<Asn1ReadResult> {
+    private final Publisher<ByteBuffer> source;
+    private final Asn1ReaderOptions options;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    ByteBufferParsingPublisher(Publisher<ByteBuffer> source, Asn1ReaderOptions options) {
+        this.source = source;
+        this.options = options;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Asn1ReadResult> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        if (!this.subscribed.compareAndSet(false, true)) {
+            Subscriptions.rejectSubscriber(subscriber);
+            return;
+        }
+        ParsingSubscription subscription = new ParsingSubscription(subscriber, this.options);
+        subscriber.onSubscribe(subscription);
+        this.source.subscribe(subscription);
+    }
+
+    static final class ParsingSubscription implements Subscription, Subscriber<ByteBuffer> {
+        private final Subscriber<? super Asn1ReadResult> downstream;
+        private final Asn1Multiplexer<Object> parser;
+        private final Asn1Multiplexer.Connection<Object> connection;
+        private final ConcurrentLinkedQueue<Asn1ReadResult> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile Subscription upstream;
+        private volatile boolean inputRequested = false;
+        private volatile boolean cancelled = false;
+        private volatile boolean done = false;
+        private Throwable error;
+
+        ParsingSubscription(Subscriber<? super Asn1ReadResult> downstream, Asn1ReaderOptions options) {
+            this.downstream = downstream;
+            this.parser = new Asn1Multiplexer<>(options, (key, result) -> {
+                if (result.getReadType() != Asn1ReadResult.ReadType.EOF) {
+                    this.pending.offer(result);
+                }
+            });
+            this.connection = this.parser.open(this);
+        }
+
+        // Downstream side
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                Subscription upstream = this.upstream;
+                if (upstream != null) {
+                    upstream.cancel();
+                }
+                this.fail(new IllegalArgumentException("request must be positive (rule 3.9)"));
+                return;
+            }
+            Subscriptions.addRequested(this.requested, n);
+            this.drain();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            Subscription upstream = this.upstream;
+            if (upstream != null) {
+                upstream.cancel();
+            }
+            this.drain();
+        }
+
+        // Upstream side, signalled serially
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            if (this.upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            this.upstream = subscription;
+            if (this.cancelled) {
+                subscription.cancel();
+                return;
+            }
+            this.drain();
+        }
+
+        @Override
+        public void onNext(ByteBuffer buffer) {
+            if (this.done) {
+                return;
+            }
+            try {
+                this.parser.feed(this.connection, buffer);
+            } catch (IOException e) {
+                this.upstream.cancel();
+                this.fail(e);
+                return;
+            }
+            this.inputRequested = false;
+            this.drain();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (this.done) {
+                return;
+            }
+            this.fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (this.done) {
+                return;
+            }
+            if (!this.connection.isIdle()) {
+                this.fail(new EOFException("Truncated element at end of input"));
+                return;
+            }
+            this.parser.close(this.connection);
+            this.done = true;
+            this.drain();
+        }
+
+        private void fail(Throwable throwable) {
+            this.error = throwable;
+            this.done = true;
+            this.drain();
+        }
+
+        private void drain() {
+            if (this.wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (this.cancelled) {
+                    this.pending.clear();
+                    return;
+                }
+                long r = this.requested.get();
+                long e = 0;
+                while (e != r) {
+                    if (this.cancelled) {
+                        this.pending.clear();
+                        return;
+                    }
+                    boolean d = this.done;
+                    Asn1ReadResult item = this.pending.poll();
+                    if (item == null) {
+                        if (d) {
+                            this.terminate();
+                            return;
+                        }
+                        break;
+                    }
+                    this.downstream.onNext(item);
+                    e++;
+                }
+                if (e == r && this.done && (this.error != null || this.pending.isEmpty())) {
+                    this.terminate();
+                    return;
+                }
+                if (e != 0 && r != Long.MAX_VALUE) {
+                    this.requested.addAndGet(-e);
+                }
+                Subscription upstream = this.upstream;
+                if (!this.done && !this.inputRequested && upstream != null && this.pending.isEmpty() && this.requested.get() > 0) {
+                    // Only ask for more input once the parsed results are used up
+                    this.inputRequested = true;
+                    upstream.request(1);
+                }
+                missed = this.wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void terminate() {
+            this.cancelled = true;
+            this.pending.clear();
+            if (this.error != null) {
+                this.downstream.onError(this.error);
+            } else {
+                this.downstream.onComplete();
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package kr.jclab.javautils.asn1streamreader.reactive;
+
+import kr.jclab.javautils.asn1streamreader.Asn1ReadResult;
+import kr.jclab.javautils.asn1streamreader.Asn1StreamReader;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class ReaderPublisher implements Publisher<Asn1ReadResult> {
+    private final Asn1StreamReader reader;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    ReaderPublisher(Asn1StreamReader reader, Executor executor) {
+        this.reader = reader;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Asn1ReadResult> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        if (!this.subscribed.compareAndSet(false, true)) {
+            Subscriptions.rejectSubscriber(subscriber);
+            return;
+        }
+        subscriber.onSubscribe(new ReaderSubscription(subscriber, this.reader, this.executor));
+    }
+
+    static final class ReaderSubscription implements Subscription, Runnable {
+        private final Subscriber<? super Asn1ReadResult> downstream;
+        private final Asn1StreamReader reader;
+        private final Executor executor;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        private volatile Throwable invalidRequest = null;
+
+        ReaderSubscription(Subscriber<? super Asn1ReadResult> downstream, Asn1StreamReader reader, Executor executor) {
+            this.downstream = downstream;
+            this.reader = reader;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                this.invalidRequest = new IllegalArgumentException("request must be positive (rule 3.9)");
+            } else {
+                Subscriptions.addRequested(this.requested, n);
+            }
+            this.schedule();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            this.schedule();
+        }
+
+        private void schedule() {
+            if (this.wip.getAndIncrement() == 0) {
+                this.executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (this.cancelled) {
+                    this.closeReader();
+                    return;
+                }
+                if (this.invalidRequest != null) {
+                    this.terminate(this.invalidRequest);
+                    return;
+                }
+                long r = this.requested.get();
+                long e = 0;
+                while (e != r) {
+                    if (this.cancelled) {
+                        this.closeReader();
+                        return;
+                    }
+                    Asn1ReadResult item;
+                    try {
+                        item = this.reader.readObject(false);
+                    } catch (EOFException ex) {
+                        // The reader keeps an EOFException as its failure only when the input ended inside an element
+                        this.terminate((ex == this.reader.getLastException()) ? ex : null);
+                        return;
+                    } catch (IOException ex) {
+                        this.terminate(ex);
+                        return;
+                    }
+                    if (item == null || item.getReadType() == Asn1ReadResult.ReadType.EOF) {
+                        this.terminate(null);
+                        return;
+                    }
+                    this.downstream.onNext(item);
+                    e++;
+                }
+                if (e != 0 && r != Long.MAX_VALUE) {
+                    this.requested.addAndGet(-e);
+                }
+                missed = this.wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void terminate(Throwable error) {
+            this.cancelled = true;
+            this.closeReader();
+            if (error != null) {
+                this.downstream.onError(error);
+            } else {
+                this.downstream.onComplete();
+            }
+        }
+
+        private void closeReader() {
+            try {
+                this.reader.close();
+            } catch (IOException e) {
+                // Nothing
+            }
+        }
+    }
+}
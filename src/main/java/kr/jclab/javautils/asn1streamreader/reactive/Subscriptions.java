@@ -0,0 +1,44 @@
+package kr.jclab.javautils.asn1streamreader.reactive;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+final class Subscriptions {
+    private Subscriptions() {
+    }
+
+    static final Subscription EMPTY = new Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    static void rejectSubscriber(Subscriber<?> subscriber) {
+        subscriber.onSubscribe(EMPTY);
+        subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+    }
+
+    /**
+     * Adds to the outstanding demand, capping at Long.MAX_VALUE which means unbounded.
+     */
+    static void addRequested(AtomicLong requested, long n) {
+        long current;
+        long next;
+        do {
+            current = requested.get();
+            if (current == Long.MAX_VALUE) {
+                return;
+            }
+            next = current + n;
+            if (next < 0) {
+                next = Long.MAX_VALUE;
+            }
+        } while (!requested.compareAndSet(current, next));
+    }
+}
@@ -0,0 +1,76 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class Asn1IndexedFileReaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(byte[] data) throws IOException {
+        Path path = folder.newFile().toPath();
+        Files.write(path, data);
+        return path;
+    }
+
+    @Test
+    public void readsEmptyContextSpecificElements() throws Exception {
+        // [0] primitive empty, [0] constructed empty, INTEGER 5
+        byte[] data = {(byte) 0x80, 0x00, (byte) 0xa0, 0x00, 0x02, 0x01, 0x05};
+        Path path = write(data);
+        Asn1OffsetIndex index = Asn1OffsetIndex.build(path, false);
+        assertEquals(3, index.size());
+        try (Asn1IndexedFileReader reader = new Asn1IndexedFileReader(path, index, false)) {
+            Asn1ReadResult first = reader.readElement(0);
+            assertArrayEquals(new byte[]{(byte) 0x80, 0x00}, first.getRawBuffer());
+            assertEquals(Asn1ReadResult.TAG_CLASS_CONTEXT_SPECIFIC, first.getTagClass());
+            assertEquals(2, first.getHeaderLength());
+            assertEquals(0, first.getContentLength());
+
+            Asn1ReadResult second = reader.readElement(1);
+            assertEquals(2, second.getOffset());
+            assertTrue(second.isTagConstructed());
+            assertEquals(2, second.getHeaderLength());
+            assertEquals(0, second.getContentLength());
+
+            Asn1ReadResult third = reader.readElement(2);
+            assertArrayEquals(new byte[]{0x02, 0x01, 0x05}, third.getRawBuffer());
+            assertEquals(1, third.getContentLength());
+        }
+    }
+
+    @Test
+    public void rejectsEntryShorterThanAHeader() throws Exception {
+        Path path = write(new byte[]{0x05, 0x00});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(0x41314958);
+        dataOut.writeInt(1);
+        dataOut.writeLong(2);
+        dataOut.writeInt(1);
+        dataOut.writeLong(0);
+        dataOut.writeLong(0);
+        dataOut.writeInt(5);
+        dataOut.writeByte(0);
+        dataOut.writeByte(0);
+        dataOut.writeByte(0);
+        Asn1OffsetIndex index = Asn1OffsetIndex.load(new ByteArrayInputStream(out.toByteArray()));
+
+        try (Asn1IndexedFileReader reader = new Asn1IndexedFileReader(path, index, false)) {
+            reader.readElement(0);
+            fail("entry accepted");
+        } catch (IOException e) {
+            assertFalse(e instanceof Asn1LimitExceededException);
+        }
+    }
+}
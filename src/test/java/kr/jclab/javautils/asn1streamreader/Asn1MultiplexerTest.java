@@ -0,0 +1,162 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class Asn1MultiplexerTest {
+    private static String hex(byte[] data) {
+        StringBuilder sb = new StringBuilder(data.length * 2);
+        for (byte b : data) {
+            sb.append(String.format("%02x", b & 0xff));
+        }
+        return sb.toString();
+    }
+
+    private static String describe(String key, Asn1ReadResult result) {
+        if (result.getReadType() != Asn1ReadResult.ReadType.OBJECT) {
+            return key + " " + result.getReadType();
+        }
+        return key + " OBJECT@" + result.getOffset() + " " + hex(result.getRawBuffer());
+    }
+
+    private static byte[] octetString(int length, int fill) {
+        byte[] element = new byte[4 + length];
+        element[0] = 0x04;
+        element[1] = (byte) 0x82;
+        element[2] = (byte) (length >>> 8);
+        element[3] = (byte) length;
+        Arrays.fill(element, 4, element.length, (byte) fill);
+        return element;
+    }
+
+    @Test
+    public void interleavedPartialElementsStayApart() throws Exception {
+        // a: SEQUENCE { INTEGER 1 }, OCTET STRING (300 bytes); b: BER SEQUENCE { INTEGER 2 }, NULL
+        byte[] aFirst = {0x30, 0x03, 0x02, 0x01, 0x01};
+        byte[] aSecond = octetString(300, 0xaa);
+        byte[] bFirst = {0x30, (byte) 0x80, 0x02, 0x01, 0x02, 0x00, 0x00};
+        byte[] bSecond = {0x05, 0x00};
+        byte[] a = concat(aFirst, aSecond);
+        byte[] b = concat(bFirst, bSecond);
+
+        for (boolean zeroCopy : new boolean[]{false, true}) {
+            for (int chunkSize = 1; chunkSize <= 7; chunkSize++) {
+                List<String> events = new ArrayList<>();
+                Asn1Multiplexer<String> multiplexer = new Asn1Multiplexer<>(
+                        Asn1ReaderOptions.builder().zeroCopy(zeroCopy).decodeObject(false).build(),
+                        (key, result) -> events.add(describe(key, result)), 2);
+                Asn1Multiplexer.Connection<String> connectionA = multiplexer.open("a");
+                Asn1Multiplexer.Connection<String> connectionB = multiplexer.open("b");
+
+                // Both connections are fed one chunk at a time, turn by turn, so each is left inside an element
+                int offsetA = 0;
+                int offsetB = 0;
+                while (offsetA < a.length || offsetB < b.length) {
+                    if (offsetA < a.length) {
+                        int length = Math.min(chunkSize, a.length - offsetA);
+                        multiplexer.feed(connectionA, a, offsetA, length);
+                        offsetA += length;
+                    }
+                    if (offsetB < b.length) {
+                        int length = Math.min(chunkSize, b.length - offsetB);
+                        multiplexer.feed(connectionB, b, offsetB, length);
+                        offsetB += length;
+                    }
+                }
+                assertTrue(connectionA.isIdle());
+                assertTrue(connectionB.isIdle());
+                assertEquals(a.length, connectionA.getPosition());
+                assertEquals(b.length, connectionB.getPosition());
+                multiplexer.close(connectionA);
+                multiplexer.close(connectionB);
+
+                List<String> eventsA = new ArrayList<>();
+                List<String> eventsB = new ArrayList<>();
+                for (String event : events) {
+                    (event.startsWith("a ") ? eventsA : eventsB).add(event);
+                }
+                String message = "zeroCopy=" + zeroCopy + " chunkSize=" + chunkSize;
+                assertEquals(message, Arrays.asList(
+                        "a OBJECT@0 " + hex(aFirst),
+                        "a OBJECT@5 " + hex(aSecond),
+                        "a EOF"
+                ), eventsA);
+                assertEquals(message, Arrays.asList(
+                        "b OBJECT@0 " + hex(bFirst),
+                        "b OBJECT@7 " + hex(bSecond),
+                        "b EOF"
+                ), eventsB);
+            }
+        }
+    }
+
+    @Test
+    public void partialConnectionHoldsStateUntilClosed() throws Exception {
+        List<String> events = new ArrayList<>();
+        Asn1Multiplexer<String> multiplexer = new Asn1Multiplexer<>(
+                Asn1ReaderOptions.builder().decodeObject(false).build(),
+                (key, result) -> events.add(describe(key, result)));
+        Asn1Multiplexer.Connection<String> connectionA = multiplexer.open("a");
+        Asn1Multiplexer.Connection<String> connectionB = multiplexer.open("b");
+
+        multiplexer.feed(connectionA, new byte[]{0x30, 0x03, 0x02}, 0, 3);
+        assertFalse(connectionA.isIdle());
+        assertEquals(3, connectionA.getPosition());
+
+        // Another connection parses whole elements while a is in the middle of one
+        multiplexer.feed(connectionB, new byte[]{0x02, 0x01, 0x07, 0x02, 0x01, 0x08}, 0, 6);
+        assertTrue(connectionB.isIdle());
+        assertEquals(Arrays.asList("b OBJECT@0 020107", "b OBJECT@3 020108"), events);
+
+        // Closing drops the unfinished element
+        multiplexer.close(connectionA);
+        assertTrue(connectionA.isClosed());
+        assertTrue(connectionA.isIdle());
+        assertEquals("a EOF", events.get(2));
+        try {
+            multiplexer.feed(connectionA, new byte[]{0x01, 0x01}, 0, 2);
+            fail("closed connection accepted data");
+        } catch (IOException e) {
+            // expected
+        }
+
+        multiplexer.feed(connectionB, new byte[]{0x05, 0x00}, 0, 2);
+        assertEquals("b OBJECT@6 0500", events.get(3));
+    }
+
+    @Test
+    public void parseErrorClosesOnlyItsConnection() throws Exception {
+        List<String> events = new ArrayList<>();
+        Asn1Multiplexer<String> multiplexer = new Asn1Multiplexer<>(
+                Asn1ReaderOptions.builder().decodeObject(false).maxElementSize(16).build(),
+                (key, result) -> events.add(describe(key, result)));
+        Asn1Multiplexer.Connection<String> connectionA = multiplexer.open("a");
+        Asn1Multiplexer.Connection<String> connectionB = multiplexer.open("b");
+
+        multiplexer.feed(connectionB, new byte[]{0x30, 0x03, 0x02, 0x01}, 0, 4);
+        byte[] tooLarge = octetString(100, 0);
+        try {
+            multiplexer.feed(connectionA, tooLarge, 0, 8);
+            fail("limit not enforced");
+        } catch (Asn1LimitExceededException e) {
+            assertEquals(0, e.getOffset());
+        }
+        assertTrue(connectionA.isClosed());
+        assertFalse(connectionB.isClosed());
+
+        multiplexer.feed(connectionB, new byte[]{0x09}, 0, 1);
+        assertEquals(Arrays.asList("b OBJECT@0 3003020109"), events);
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+}
@@ -0,0 +1,147 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class Asn1OffsetIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(byte[] data) throws IOException {
+        Path path = folder.newFile().toPath();
+        Files.write(path, data);
+        return path;
+    }
+
+    @Test
+    public void emptySequenceBetweenElements() throws Exception {
+        // SEQUENCE { INTEGER 1 }, SEQUENCE {}, SEQUENCE { INTEGER 2 }
+        Path path = write(new byte[]{
+                0x30, 0x03, 0x02, 0x01, 0x01,
+                0x30, 0x00,
+                0x30, 0x03, 0x02, 0x01, 0x02
+        });
+        Asn1OffsetIndex index = Asn1OffsetIndex.build(path, true);
+        assertEquals(3, index.size());
+        assertEquals(5, index.getEntryCount());
+
+        assertEquals(1, index.getChildCount(0));
+        assertEquals(0, index.getChildCount(1));
+        assertEquals(1, index.getChildCount(2));
+
+        int empty = index.getElementEntry(1);
+        assertEquals(5, index.getOffset(empty));
+        assertEquals(2, index.getLength(empty));
+        assertEquals(2, index.getHeaderLength(empty));
+        assertEquals(0x10, index.getTagNumber(empty));
+
+        int last = index.getChildEntry(2, 0);
+        assertEquals(9, index.getOffset(last));
+        assertEquals(3, index.getLength(last));
+        assertEquals(1, index.getDepth(last));
+    }
+
+    @Test(expected = IOException.class)
+    public void primitiveTopLevelElementIsRejectedWithChildren() throws Exception {
+        Path path = write(new byte[]{
+                0x30, 0x03, 0x02, 0x01, 0x01,
+                0x02, 0x01, 0x05
+        });
+        Asn1OffsetIndex.build(path, true);
+    }
+
+    @Test
+    public void primitiveTopLevelElementWithoutChildren() throws Exception {
+        Path path = write(new byte[]{
+                0x30, 0x03, 0x02, 0x01, 0x01,
+                0x02, 0x01, 0x05
+        });
+        Asn1OffsetIndex index = Asn1OffsetIndex.build(path, false);
+        assertEquals(2, index.size());
+        assertEquals(5, index.getOffset(index.getElementEntry(1)));
+        assertEquals(3, index.getLength(index.getElementEntry(1)));
+    }
+
+    @Test
+    public void emptyLastElement() throws Exception {
+        // INTEGER 5, NULL
+        Path path = write(new byte[]{0x02, 0x01, 0x05, 0x05, 0x00});
+        Asn1OffsetIndex index = Asn1OffsetIndex.build(path, false);
+        assertEquals(2, index.size());
+        int last = index.getElementEntry(1);
+        assertEquals(3, index.getOffset(last));
+        assertEquals(2, index.getLength(last));
+        assertEquals(5, index.getTagNumber(last));
+    }
+
+    @Test
+    public void saveAndLoadKeepEveryEntry() throws Exception {
+        // SEQUENCE { INTEGER 1, OCTET STRING (200 bytes) }, SEQUENCE {}, [1] (BER) { BOOLEAN true }
+        byte[] data = new byte[3 + 3 + 3 + 200 + 2 + 7];
+        int p = 0;
+        data[p++] = 0x30;
+        data[p++] = (byte) 0x81;
+        data[p++] = (byte) (3 + 3 + 200);
+        data[p++] = 0x02;
+        data[p++] = 0x01;
+        data[p++] = 0x01;
+        data[p++] = 0x04;
+        data[p++] = (byte) 0x81;
+        data[p++] = (byte) 200;
+        p += 200;
+        data[p++] = 0x30;
+        data[p++] = 0x00;
+        data[p++] = (byte) 0xa1;
+        data[p++] = (byte) 0x80;
+        data[p++] = 0x01;
+        data[p++] = 0x01;
+        data[p++] = (byte) 0xff;
+        data[p++] = 0x00;
+        data[p] = 0x00;
+        Path path = write(data);
+
+        Asn1OffsetIndex index = Asn1OffsetIndex.build(path, true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.save(out);
+        Asn1OffsetIndex loaded = Asn1OffsetIndex.load(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(data.length, loaded.getSourceLength());
+        assertEquals(index.size(), loaded.size());
+        assertEquals(index.getEntryCount(), loaded.getEntryCount());
+        for (int entry = 0; entry < index.getEntryCount(); entry++) {
+            assertEquals(index.getOffset(entry), loaded.getOffset(entry));
+            assertEquals(index.getLength(entry), loaded.getLength(entry));
+            assertEquals(index.getHeaderLength(entry), loaded.getHeaderLength(entry));
+            assertEquals(index.getTagClass(entry), loaded.getTagClass(entry));
+            assertEquals(index.isTagConstructed(entry), loaded.isTagConstructed(entry));
+            assertEquals(index.getTagNumber(entry), loaded.getTagNumber(entry));
+            assertEquals(index.getDepth(entry), loaded.getDepth(entry));
+        }
+        for (int element = 0; element < index.size(); element++) {
+            assertEquals(index.getChildCount(element), loaded.getChildCount(element));
+        }
+        assertArrayEquals(index.findByTag(Asn1ReadResult.TAG_CLASS_UNIVERSAL, 0x04), loaded.findByTag(Asn1ReadResult.TAG_CLASS_UNIVERSAL, 0x04));
+
+        int octets = loaded.getChildEntry(0, 1);
+        assertEquals(6, loaded.getOffset(octets));
+        assertEquals(203, loaded.getLength(octets));
+        assertEquals(3, loaded.getHeaderLength(octets));
+        assertEquals(209, loaded.getLength(loaded.getElementEntry(0)));
+        assertEquals(7, loaded.getLength(loaded.getElementEntry(2)));
+        assertEquals(Asn1ReadResult.TAG_CLASS_CONTEXT_SPECIFIC, loaded.getTagClass(loaded.getElementEntry(2)));
+    }
+
+    @Test(expected = IOException.class)
+    public void loadRejectsOtherData() throws Exception {
+        Asn1OffsetIndex.load(new ByteArrayInputStream(new byte[16]));
+    }
+}
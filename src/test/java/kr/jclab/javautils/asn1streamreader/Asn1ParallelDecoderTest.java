@@ -0,0 +1,141 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class Asn1ParallelDecoderTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @After
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private static ByteBuffer integers(int count) {
+        ByteBuffer buffer = ByteBuffer.allocate(count * 3);
+        for (int i = 1; i <= count; i++) {
+            buffer.put((byte) 0x02).put((byte) 0x01).put((byte) i);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static Asn1ReaderOptions options(Asn1ObjectDecoder decoder) {
+        return Asn1ReaderOptions.builder().zeroCopy(true).objectDecoder(decoder).build();
+    }
+
+    private static int valueOf(Asn1ReadResult result) {
+        ByteBuffer raw = result.getRawByteBuffer();
+        return raw.get(raw.limit() - 1);
+    }
+
+    private static String describe(Asn1ReadResult result) {
+        if (result.getReadType() == Asn1ReadResult.ReadType.EOF) {
+            return "EOF";
+        }
+        return String.valueOf(result.getObject());
+    }
+
+    /**
+     * Decodes INTEGER 1 only after INTEGER 3, so that completion order is not input order.
+     */
+    private static Asn1ObjectDecoder reversingDecoder() {
+        CountDownLatch lastDecoded = new CountDownLatch(1);
+        return result -> {
+            int value = valueOf(result);
+            if (value == 1) {
+                try {
+                    assertTrue(lastDecoded.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            } else if (value == 3) {
+                lastDecoded.countDown();
+            }
+            return (long) value;
+        };
+    }
+
+    @Test
+    public void orderedKeepsInputOrder() throws Exception {
+        List<String> delivered = new ArrayList<>();
+        new Asn1ParallelDecoder(this.executor, true, 3)
+                .decode(integers(3), options(reversingDecoder()), result -> delivered.add(describe(result)));
+        assertEquals(Arrays.asList("1", "2", "3", "EOF"), delivered);
+    }
+
+    @Test
+    public void unorderedDeliversInCompletionOrderAndEofLast() throws Exception {
+        List<String> delivered = new ArrayList<>();
+        new Asn1ParallelDecoder(this.executor, false, 3)
+                .decode(integers(3), options(reversingDecoder()), result -> delivered.add(describe(result)));
+        assertEquals(4, delivered.size());
+        assertNotEquals("1", delivered.get(0));
+        assertEquals(Arrays.asList("1", "2", "3"), sorted(delivered.subList(0, 3)));
+        assertEquals("EOF", delivered.get(3));
+    }
+
+    @Test
+    public void maxInFlightBoundsPendingDecodes() throws Exception {
+        for (boolean ordered : new boolean[]{true, false}) {
+            AtomicInteger started = new AtomicInteger();
+            AtomicInteger delivered = new AtomicInteger();
+            AtomicInteger maxPending = new AtomicInteger();
+            Asn1ObjectDecoder decoder = result -> {
+                started.incrementAndGet();
+                return (long) valueOf(result);
+            };
+            List<String> values = new ArrayList<>();
+            new Asn1ParallelDecoder(this.executor, ordered, 2).decode(integers(50), options(decoder), result -> {
+                maxPending.accumulateAndGet(started.get() - delivered.get(), Math::max);
+                delivered.incrementAndGet();
+                values.add(describe(result));
+            });
+            assertTrue("ordered=" + ordered + " pending=" + maxPending.get(), maxPending.get() <= 2);
+            assertEquals(51, values.size());
+            assertEquals("EOF", values.get(50));
+        }
+    }
+
+    @Test
+    public void decodeFailureIsRethrown() throws Exception {
+        IOException failure = new IOException("bad element");
+        Asn1ObjectDecoder decoder = result -> {
+            if (valueOf(result) == 2) {
+                throw failure;
+            }
+            return (long) valueOf(result);
+        };
+        for (boolean ordered : new boolean[]{true, false}) {
+            List<String> delivered = new ArrayList<>();
+            try {
+                new Asn1ParallelDecoder(this.executor, ordered, 2)
+                        .decode(integers(3), options(decoder), result -> delivered.add(describe(result)));
+                fail("ordered=" + ordered + ": failure not rethrown");
+            } catch (IOException e) {
+                assertSame(failure, e);
+            }
+            assertFalse(delivered.contains("2"));
+            assertFalse(delivered.contains("EOF"));
+        }
+    }
+
+    private static List<String> sorted(List<String> values) {
+        List<String> copy = new ArrayList<>(values);
+        copy.sort(null);
+        return copy;
+    }
+}
@@ -0,0 +1,241 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import kr.jclab.javautils.asn1streamreader.object.Asn1SequenceResult;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Feeds the same input in every chunk size and checks that the reader reports the same results
+ * as when the whole input arrives at once.
+ */
+public class Asn1StreamReaderChunkingTest {
+    private static final byte[][] ELEMENTS;
+    private static final byte[] INPUT;
+    /**
+     * INPUT without the trailing NULL, for strip mode which takes only constructed top-level elements.
+     */
+    private static final byte[] SEQUENCE_INPUT;
+
+    static {
+        ByteArrayOutputStream octets = new ByteArrayOutputStream();
+        // SEQUENCE { OCTET STRING (300 bytes), INTEGER 9 }
+        octets.write(0x30);
+        octets.write(0x82);
+        octets.write(0x01);
+        octets.write(0x33);
+        octets.write(0x04);
+        octets.write(0x82);
+        octets.write(0x01);
+        octets.write(0x2c);
+        for (int i = 0; i < 300; i++) {
+            octets.write(i);
+        }
+        octets.write(0x02);
+        octets.write(0x01);
+        octets.write(0x09);
+
+        ELEMENTS = new byte[][]{
+                // SEQUENCE { INTEGER 1 }
+                {0x30, 0x03, 0x02, 0x01, 0x01},
+                // SEQUENCE {}
+                {0x30, 0x00},
+                octets.toByteArray(),
+                // SEQUENCE { [APPLICATION 100] 2 bytes, [PRIVATE 200] constructed {} }
+                {0x30, 0x09, 0x5f, 0x64, 0x02, (byte) 0xaa, (byte) 0xbb, (byte) 0xff, (byte) 0x81, 0x48, 0x00},
+                // BER SEQUENCE { constructed OCTET STRING { OCTET STRING 2 bytes }, INTEGER 7 }
+                {0x30, (byte) 0x80, 0x24, (byte) 0x80, 0x04, 0x02, 0x01, 0x02, 0x00, 0x00, 0x02, 0x01, 0x07, 0x00, 0x00},
+                // SEQUENCE { SEQUENCE { SEQUENCE { BOOLEAN true } } }
+                {0x30, 0x07, 0x30, 0x05, 0x30, 0x03, 0x01, 0x01, (byte) 0xff},
+                // SEQUENCE { INTEGER 9 } with a long-form length
+                {0x30, (byte) 0x82, 0x00, 0x03, 0x02, 0x01, 0x09},
+                // SEQUENCE { NULL }
+                {0x30, 0x02, 0x05, 0x00},
+                // SEQUENCE { [0] constructed {}, [0] primitive empty, [1] (BER) {} }
+                {0x30, 0x08, (byte) 0xa0, 0x00, (byte) 0x80, 0x00, (byte) 0xa1, (byte) 0x80, 0x00, 0x00},
+                // NULL, last so that nothing follows its empty content
+                {0x05, 0x00},
+        };
+
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        for (byte[] element : ELEMENTS) {
+            input.write(element, 0, element.length);
+        }
+        INPUT = input.toByteArray();
+        SEQUENCE_INPUT = Arrays.copyOf(INPUT, INPUT.length - ELEMENTS[ELEMENTS.length - 1].length);
+    }
+
+    private static List<String> read(byte[] data, int chunkSize, Asn1ReaderOptions.Builder builder) throws Exception {
+        List<String> events = new ArrayList<>();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        long[] contentOffset = {-1};
+        CallbackInputStream in = new CallbackInputStream();
+        new Asn1StreamReader(in, builder.decodeObject(false).readCallback(result -> {
+            Asn1ReadResult.ReadType readType = result.getReadType();
+            if (readType == Asn1ReadResult.ReadType.CONTENT_CHUNK) {
+                // How the content is split depends on how the input arrives, so only the joined bytes are compared
+                if (contentOffset[0] < 0) {
+                    contentOffset[0] = result.getOffset();
+                }
+                byte[] raw = result.getRawBuffer();
+                content.write(raw, 0, raw.length);
+                return;
+            }
+            if (contentOffset[0] >= 0) {
+                events.add("CONTENT@" + contentOffset[0] + " " + hex(content.toByteArray()));
+                content.reset();
+                contentOffset[0] = -1;
+            }
+            StringBuilder sb = new StringBuilder().append(readType);
+            if (result.getObject() instanceof Asn1SequenceResult) {
+                Asn1SequenceResult sequence = (Asn1SequenceResult) result.getObject();
+                sb.append(" ber=").append(sequence.isBer()).append(" size=").append(sequence.getSize());
+            }
+            if (readType == Asn1ReadResult.ReadType.OBJECT || readType == Asn1ReadResult.ReadType.BEGIN_CONTENT
+                    || readType == Asn1ReadResult.ReadType.BEGIN_SEQUENCE) {
+                sb.append('@').append(result.getOffset())
+                        .append(" tag=").append(result.getTagClass()).append('/').append(result.isTagConstructed()).append('/').append(result.getTagNumber())
+                        .append(" header=").append(result.getHeaderLength())
+                        .append(" content=").append(result.getContentLength());
+            }
+            if (readType == Asn1ReadResult.ReadType.OBJECT) {
+                sb.append(' ').append(hex(result.getRawBuffer()));
+            }
+            events.add(sb.toString());
+        }).build());
+
+        for (int offset = 0; offset < data.length; offset += chunkSize) {
+            in.write(data, offset, Math.min(chunkSize, data.length - offset));
+        }
+        in.close();
+        return events;
+    }
+
+    private static String hex(byte[] data) {
+        StringBuilder sb = new StringBuilder(data.length * 2);
+        for (byte b : data) {
+            sb.append(String.format("%02x", b & 0xff));
+        }
+        return sb.toString();
+    }
+
+    private static byte[] input(boolean stripSequence) {
+        return stripSequence ? SEQUENCE_INPUT : INPUT;
+    }
+
+    private static Asn1ReaderOptions.Builder options(boolean zeroCopy, boolean stripSequence, int contentChunkSize, boolean filter) {
+        Asn1ReaderOptions.Builder builder = Asn1ReaderOptions.builder()
+                .zeroCopy(zeroCopy)
+                .stripSequence(stripSequence)
+                .contentChunkSize(contentChunkSize);
+        if (filter) {
+            // Skips the OCTET STRING children, primitive or constructed, and the [APPLICATION 100] element
+            builder.tagFilter((tagClass, constructed, tagNumber) ->
+                    !(tagClass == Asn1ReadResult.TAG_CLASS_UNIVERSAL && tagNumber == 0x04)
+                            && !(tagClass == Asn1ReadResult.TAG_CLASS_APPLICATION && tagNumber == 100));
+        }
+        return builder;
+    }
+
+    @Test
+    public void wholeInputGivesEachElement() throws Exception {
+        List<String> events = read(INPUT, INPUT.length, options(false, false, 0, false));
+        assertEquals(ELEMENTS.length + 1, events.size());
+        long offset = 0;
+        for (int i = 0; i < ELEMENTS.length; i++) {
+            assertTrue(events.get(i), events.get(i).startsWith("OBJECT@" + offset + " "));
+            assertTrue(events.get(i), events.get(i).endsWith(" " + hex(ELEMENTS[i])));
+            offset += ELEMENTS[i].length;
+        }
+        assertEquals("EOF", events.get(ELEMENTS.length));
+    }
+
+    @Test
+    public void wholeInputWithStripSequence() throws Exception {
+        List<String> events = read(SEQUENCE_INPUT, SEQUENCE_INPUT.length, options(false, true, 0, false));
+        int begin = 0;
+        int end = 0;
+        for (String event : events) {
+            if (event.startsWith("BEGIN_SEQUENCE")) {
+                assertEquals(begin++, end);
+            } else if (event.startsWith("END_SEQUENCE")) {
+                assertEquals(begin, ++end);
+            }
+        }
+        assertEquals(ELEMENTS.length - 1, begin);
+        assertEquals(ELEMENTS.length - 1, end);
+        assertEquals("OBJECT@2 tag=0/false/2 header=2 content=1 020101", events.get(1));
+        // SEQUENCE {} has no children
+        assertTrue(events.get(3), events.get(3).startsWith("BEGIN_SEQUENCE ber=false size=2@5 "));
+        assertEquals("END_SEQUENCE ber=false size=2", events.get(4));
+    }
+
+    @Test
+    public void emptyContextSpecificElementsAreNotEndOfContents() throws Exception {
+        byte[] input = {0x30, 0x08, (byte) 0xa0, 0x00, (byte) 0x80, 0x00, (byte) 0xa1, (byte) 0x80, 0x00, 0x00};
+        for (int chunkSize = 1; chunkSize <= input.length; chunkSize++) {
+            List<String> events = read(input, chunkSize, options(false, true, 0, false));
+            assertEquals(Arrays.asList(
+                    "BEGIN_SEQUENCE ber=false size=10@0 tag=0/true/16 header=2 content=8",
+                    "OBJECT@2 tag=2/true/0 header=2 content=0 a000",
+                    "OBJECT@4 tag=2/false/0 header=2 content=0 8000",
+                    "OBJECT@6 tag=2/true/1 header=2 content=-1 a1800000",
+                    "END_SEQUENCE ber=false size=10",
+                    "EOF"
+            ), events);
+        }
+    }
+
+    @Test
+    public void everyChunkSizeMatchesWholeInput() throws Exception {
+        for (boolean zeroCopy : new boolean[]{false, true}) {
+            for (boolean stripSequence : new boolean[]{false, true}) {
+                for (int contentChunkSize : new int[]{0, 1, 64}) {
+                    for (boolean filter : new boolean[]{false, true}) {
+                        byte[] input = input(stripSequence);
+                        List<String> expected = read(input, input.length, options(zeroCopy, stripSequence, contentChunkSize, filter));
+                        for (int chunkSize = 1; chunkSize < input.length; chunkSize++) {
+                            List<String> actual = read(input, chunkSize, options(zeroCopy, stripSequence, contentChunkSize, filter));
+                            assertEquals("zeroCopy=" + zeroCopy + " strip=" + stripSequence + " contentChunkSize=" + contentChunkSize
+                                    + " filter=" + filter + " chunkSize=" + chunkSize, expected, actual);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void optionsOnlyChangeWhatTheyAreFor() throws Exception {
+        // Zero copy does not change any result
+        for (boolean stripSequence : new boolean[]{false, true}) {
+            byte[] input = input(stripSequence);
+            assertEquals(read(input, 7, options(false, stripSequence, 0, false)), read(input, 7, options(true, stripSequence, 0, false)));
+        }
+
+        // A chunked element carries the same content as the OBJECT it replaces
+        List<String> chunked = read(SEQUENCE_INPUT, 3, options(false, true, 64, false));
+        String octetString = hex(Arrays.copyOfRange(ELEMENTS[2], 4, 4 + 304));
+        assertTrue(chunked.contains("BEGIN_CONTENT@11 tag=0/false/4 header=4 content=300"));
+        assertTrue(chunked.contains("CONTENT@15 " + octetString.substring(8)));
+        assertTrue(chunked.contains("END_CONTENT"));
+        assertTrue(read(SEQUENCE_INPUT, 3, options(false, true, 0, false)).contains("OBJECT@11 tag=0/false/4 header=4 content=300 " + octetString));
+
+        // Filtered elements are left out and nothing else changes
+        List<String> all = read(SEQUENCE_INPUT, 5, options(false, true, 0, false));
+        List<String> filtered = read(SEQUENCE_INPUT, 5, options(false, true, 0, true));
+        List<String> kept = new ArrayList<>();
+        for (String event : all) {
+            if (!event.startsWith("OBJECT@11 ") && !event.startsWith("OBJECT@320 ") && !event.startsWith("OBJECT@331 ")) {
+                kept.add(event);
+            }
+        }
+        assertEquals(all.size() - 3, kept.size());
+        assertEquals(kept, filtered);
+    }
+}
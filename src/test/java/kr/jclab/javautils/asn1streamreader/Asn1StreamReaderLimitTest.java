@@ -0,0 +1,169 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class Asn1StreamReaderLimitTest {
+    // INTEGER 5, then an OCTET STRING header claiming 1,000,000 content bytes and the start of its content
+    private static final byte[] INPUT = {
+            0x02, 0x01, 0x05,
+            0x04, (byte) 0x83, 0x0f, 0x42, 0x40, 0x11, 0x22, 0x33
+    };
+
+    private static Asn1ReaderOptions.Builder limitedOptions() {
+        return Asn1ReaderOptions.builder()
+                .decodeObject(false)
+                .maxElementSize(1000);
+    }
+
+    @Test
+    public void callbackWriteThrowsAndStaysFailed() throws Exception {
+        List<Asn1ReadResult> results = new ArrayList<>();
+        CallbackInputStream in = new CallbackInputStream();
+        Asn1StreamReader reader = new Asn1StreamReader(in, limitedOptions().readCallback(results::add).build());
+
+        try {
+            in.write(INPUT);
+            fail("limit not enforced");
+        } catch (Asn1LimitExceededException e) {
+            assertEquals(3, e.getOffset());
+            assertSame(e, reader.getLastException());
+        }
+        assertEquals(1, results.size());
+        assertEquals(Asn1ReadResult.ReadType.OBJECT, results.get(0).getReadType());
+        assertEquals(0, results.get(0).getOffset());
+
+        // The rest of the rejected element, and anything after it, is not parsed
+        try {
+            in.write(new byte[]{0x02, 0x01, 0x06});
+            fail("failure not kept");
+        } catch (Asn1LimitExceededException e) {
+            assertSame(reader.getLastException(), e);
+        }
+        assertEquals(1, results.size());
+
+        // No EOF follows a failure
+        in.close();
+        assertEquals(1, results.size());
+    }
+
+    @Test
+    public void readObjectKeepsThrowing() throws Exception {
+        Asn1StreamReader reader = new Asn1StreamReader(new ByteArrayInputStream(INPUT), limitedOptions().build());
+        Asn1ReadResult first = reader.readObject(false);
+        assertEquals(Asn1ReadResult.ReadType.OBJECT, first.getReadType());
+
+        IOException failure = null;
+        try {
+            reader.readObject(false);
+            fail("limit not enforced");
+        } catch (Asn1LimitExceededException e) {
+            failure = e;
+        }
+        for (int i = 0; i < 3; i++) {
+            try {
+                reader.readObject(true);
+                fail("failure not kept");
+            } catch (IOException e) {
+                assertSame(failure, e);
+            }
+        }
+    }
+
+    @Test
+    public void readChannelKeepsThrowing() throws Exception {
+        List<Asn1ReadResult> results = new ArrayList<>();
+        Asn1StreamReader reader = new Asn1StreamReader(
+                Channels.newChannel(new ByteArrayInputStream(INPUT)),
+                limitedOptions().readCallback(results::add).build());
+
+        IOException failure = null;
+        try {
+            reader.readChannel();
+            fail("limit not enforced");
+        } catch (Asn1LimitExceededException e) {
+            failure = e;
+        }
+        // Results completed before the failure are still delivered
+        assertEquals(1, results.size());
+        assertEquals(Asn1ReadResult.ReadType.OBJECT, results.get(0).getReadType());
+        try {
+            reader.readChannel();
+            fail("failure not kept");
+        } catch (IOException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(1, results.size());
+    }
+
+    @Test
+    public void queuedResultsCountAsBuffered() throws Exception {
+        CallbackInputStream in = new CallbackInputStream();
+        Asn1StreamReader reader = new Asn1StreamReader(in, Asn1ReaderOptions.builder()
+                .decodeObject(false)
+                .maxBufferedBytes(10)
+                .build());
+        byte[] integers = {0x02, 0x01, 0x01, 0x02, 0x01, 0x02, 0x02, 0x01, 0x03};
+        in.write(integers);
+
+        // Taking a result frees its bytes
+        assertEquals(0, reader.readObject(true).getOffset());
+        in.write(new byte[]{0x02, 0x01, 0x04});
+
+        // 9 bytes queued, so another 3-byte element does not fit
+        try {
+            in.write(new byte[]{0x02, 0x01, 0x05});
+            fail("limit not enforced");
+        } catch (Asn1LimitExceededException e) {
+            assertEquals(12, e.getOffset());
+        }
+    }
+
+    @Test
+    public void openElementsCountAsBuffered() throws Exception {
+        List<Asn1ReadResult> results = new ArrayList<>();
+        CallbackInputStream in = new CallbackInputStream();
+        new Asn1StreamReader(in, Asn1ReaderOptions.builder()
+                .decodeObject(false)
+                .maxBufferedBytes(16)
+                .readCallback(results::add)
+                .build());
+        // SEQUENCE { OCTET STRING (8 bytes) } fits on its own
+        in.write(new byte[]{0x30, 0x0a, 0x04, 0x08, 1, 2, 3, 4, 5, 6, 7, 8});
+        assertEquals(1, results.size());
+
+        // A BER SEQUENCE that already holds 10 bytes, then a child announcing 8 more
+        in.write(new byte[]{0x30, (byte) 0x80, 0x04, 0x02, 1, 2, 0x04, 0x02, 3, 4});
+        try {
+            in.write(new byte[]{0x04, 0x08});
+            fail("limit not enforced");
+        } catch (Asn1LimitExceededException e) {
+            assertEquals(12, e.getOffset());
+        }
+    }
+
+    @Test
+    public void resetClearsTheFailure() throws Exception {
+        Asn1StreamReader reader = new Asn1StreamReader(new ByteArrayInputStream(INPUT), limitedOptions().build());
+        assertNotNull(reader.readObject(false));
+        try {
+            reader.readObject(false);
+            fail("limit not enforced");
+        } catch (Asn1LimitExceededException e) {
+            // expected
+        }
+
+        reader.reset(new ByteArrayInputStream(new byte[]{0x02, 0x01, 0x07}));
+        assertNull(reader.getLastException());
+        Asn1ReadResult result = reader.readObject(false);
+        assertEquals(Asn1ReadResult.ReadType.OBJECT, result.getReadType());
+        assertEquals(0, result.getOffset());
+    }
+}
@@ -0,0 +1,117 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import static org.junit.Assert.*;
+
+public class Asn1StreamReaderPoolTest {
+    // INTEGER 1, INTEGER 2, INTEGER 3
+    private static final byte[] INTEGERS = {0x02, 0x01, 0x01, 0x02, 0x01, 0x02, 0x02, 0x01, 0x03};
+    // INTEGER 1, then the start of a SEQUENCE
+    private static final byte[] TRUNCATED = {0x02, 0x01, 0x01, 0x30, 0x03, 0x02};
+    private static final byte[] SEVEN = {0x02, 0x01, 0x07};
+
+    private static Asn1StreamReaderPool newPool() {
+        return new Asn1StreamReaderPool(Asn1ReaderOptions.builder().decodeObject(false).build(), 1);
+    }
+
+    private static void assertSeven(Asn1ReadResult result) {
+        assertEquals(Asn1ReadResult.ReadType.OBJECT, result.getReadType());
+        assertEquals(0, result.getOffset());
+        assertArrayEquals(SEVEN, result.getRawBuffer());
+    }
+
+    @Test
+    public void streamReaderStartsOver() throws Exception {
+        Asn1StreamReaderPool pool = newPool();
+        boolean[] closed = {false};
+        ByteArrayInputStream first = new ByteArrayInputStream(TRUNCATED) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        Asn1StreamReader reader = pool.acquire(first);
+        assertEquals(Asn1ReadResult.ReadType.OBJECT, reader.readObject(false).getReadType());
+        try {
+            reader.readObject(false);
+            fail("truncated element not reported");
+        } catch (EOFException e) {
+            assertSame(e, reader.getLastException());
+        }
+
+        pool.release(reader);
+        assertTrue(closed[0]);
+        assertEquals(1, pool.getIdleCount());
+
+        Asn1StreamReader reused = pool.acquire(new ByteArrayInputStream(SEVEN));
+        assertSame(reader, reused);
+        assertEquals(0, pool.getIdleCount());
+        assertNull(reused.getLastException());
+        assertFalse(reused.eof());
+        assertSeven(reused.readObject(false));
+    }
+
+    @Test
+    public void callbackReaderStartsOver() throws Exception {
+        Asn1StreamReaderPool pool = newPool();
+        CallbackInputStream first = new CallbackInputStream();
+        Asn1StreamReader reader = pool.acquire(first);
+        first.write(INTEGERS);
+        first.close();
+        // Two results and the EOF are left in the queue
+        assertEquals(0, reader.readObject(true).getOffset());
+        assertFalse(reader.eof());
+
+        pool.release(reader);
+        CallbackInputStream second = new CallbackInputStream();
+        Asn1StreamReader reused = pool.acquire(second);
+        assertSame(reader, reused);
+        assertFalse(reused.eof());
+        assertNull(reused.readObject(true));
+
+        // The stream of the previous session no longer reaches the reader
+        try {
+            first.write(INTEGERS);
+        } catch (IOException e) {
+            // A closed stream may refuse the write
+        }
+        assertNull(reused.readObject(true));
+
+        second.write(SEVEN);
+        assertSeven(reused.readObject(true));
+        assertNull(reused.readObject(true));
+        assertFalse(reused.eof());
+    }
+
+    @Test
+    public void channelReaderStartsOver() throws Exception {
+        Asn1StreamReaderPool pool = newPool();
+        Asn1StreamReader reader = pool.acquire(Channels.newChannel(new ByteArrayInputStream(INTEGERS)));
+        assertEquals(0, reader.readObject(false).getOffset());
+
+        pool.release(reader);
+        // Stream and channel readers are kept apart
+        Asn1StreamReader streamReader = pool.acquire(new ByteArrayInputStream(SEVEN));
+        assertNotSame(reader, streamReader);
+
+        Asn1StreamReader reused = pool.acquire(Channels.newChannel(new ByteArrayInputStream(SEVEN)));
+        assertSame(reader, reused);
+        assertFalse(reused.eof());
+        assertSeven(reused.readObject(false));
+        // What the previous channel had left unread is gone, only the end of this one follows
+        Asn1ReadResult next;
+        try {
+            next = reused.readObject(false);
+        } catch (EOFException e) {
+            next = null;
+        }
+        assertTrue(next == null || next.getReadType() == Asn1ReadResult.ReadType.EOF);
+    }
+}
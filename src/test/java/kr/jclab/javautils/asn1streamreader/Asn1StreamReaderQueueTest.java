@@ -0,0 +1,64 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class Asn1StreamReaderQueueTest {
+    private static final byte[] INTEGER = {0x02, 0x01, 0x05};
+
+    @Test
+    public void timedReadReturnsEofOnceClosedAndDrained() throws Exception {
+        QueueInputStream in = new QueueInputStream();
+        Asn1StreamReader reader = new Asn1StreamReader(in, Asn1ReaderOptions.builder().decodeObject(false).build());
+        in.put(INTEGER);
+        in.close();
+
+        Asn1ReadResult result = reader.readObject(1, TimeUnit.SECONDS);
+        assertEquals(Asn1ReadResult.ReadType.OBJECT, result.getReadType());
+        assertFalse(reader.eof());
+
+        long beginAt = System.nanoTime();
+        result = reader.readObject(10, TimeUnit.SECONDS);
+        assertEquals(Asn1ReadResult.ReadType.EOF, result.getReadType());
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - beginAt) < 5);
+        assertTrue(reader.eof());
+        assertNull(reader.readObject(true));
+    }
+
+    @Test
+    public void readLoopEndsWithEof() throws Exception {
+        QueueInputStream in = new QueueInputStream();
+        Asn1StreamReader reader = new Asn1StreamReader(in, Asn1ReaderOptions.builder().decodeObject(false).build());
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 3; i++) {
+                    Thread.sleep(20);
+                    in.put(INTEGER);
+                }
+                in.close();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        producer.start();
+
+        List<Asn1ReadResult.ReadType> readTypes = new ArrayList<>();
+        int iterations = 0;
+        while (!reader.eof()) {
+            Asn1ReadResult result = reader.readObject(1, TimeUnit.SECONDS);
+            if (result != null) {
+                readTypes.add(result.getReadType());
+            }
+            assertTrue("spinning without EOF", ++iterations < 100);
+        }
+        producer.join();
+
+        assertEquals(4, readTypes.size());
+        assertEquals(Asn1ReadResult.ReadType.EOF, readTypes.get(3));
+    }
+}
@@ -0,0 +1,288 @@
+package kr.jclab.javautils.asn1streamreader;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+public class QueueInputStreamTest {
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void readsChunksInOrderAcrossBoundaries() throws Exception {
+        QueueInputStream in = new QueueInputStream();
+        in.put(new byte[]{1, 2, 3});
+        in.put(new byte[]{4, 5});
+        assertEquals(5, in.available());
+        assertEquals(1, in.read());
+
+        byte[] buffer = new byte[10];
+        assertEquals(4, in.read(buffer, 0, buffer.length));
+        assertArrayEquals(new byte[]{2, 3, 4, 5}, Arrays.copyOf(buffer, 4));
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    public void returnsEndOfStreamOnceClosedAndDrained() throws Exception {
+        QueueInputStream in = new QueueInputStream();
+        in.put(new byte[]{7});
+        in.close();
+        assertEquals(7, in.read());
+        assertEquals(-1, in.read());
+        assertEquals(-1, in.read(new byte[4], 0, 4));
+        assertEquals(-1, in.drainTo(ByteBuffer.allocate(4)));
+    }
+
+    @Test
+    public void drainToAndSkipDoNotBlock() throws Exception {
+        QueueInputStream in = new QueueInputStream();
+        assertEquals(0, in.drainTo(ByteBuffer.allocate(4)));
+        assertEquals(0, in.skip(3));
+
+        in.put(new byte[]{1, 2, 3, 4, 5, 6});
+        assertEquals(2, in.skip(2));
+        ByteBuffer dest = ByteBuffer.allocate(3);
+        assertEquals(3, in.drainTo(dest));
+        assertArrayEquals(new byte[]{3, 4, 5}, dest.array());
+        assertEquals(6, in.read());
+    }
+
+    @Test
+    public void awaitAvailableWakesUpOnWrite() throws Exception {
+        QueueInputStream in = new QueueInputStream();
+        assertFalse(in.awaitAvailable(10, TimeUnit.MILLISECONDS));
+
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                in.put(new byte[]{9});
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        assertTrue(in.awaitAvailable(10, TimeUnit.SECONDS));
+        assertEquals(9, in.read());
+        producer.join();
+    }
+
+    @Test
+    public void concurrentProducersAndOneConsumerSeeAllBytes() throws Exception {
+        final int producers = 4;
+        final int chunks = 2000;
+        QueueInputStream in = new QueueInputStream();
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final byte value = (byte) (p + 1);
+            threads[p] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < chunks; i++) {
+                        byte[] chunk = new byte[1 + (i % 13)];
+                        Arrays.fill(chunk, value);
+                        in.put(chunk);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[p].start();
+        }
+        Thread closer = new Thread(() -> {
+            try {
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+                in.close();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        closer.start();
+
+        long[] counts = new long[producers + 1];
+        byte[] buffer = new byte[37];
+        int read;
+        while ((read = in.read(buffer, 0, buffer.length)) >= 0) {
+            for (int i = 0; i < read; i++) {
+                counts[buffer[i]]++;
+            }
+        }
+        closer.join();
+
+        long expected = 0;
+        for (int i = 0; i < chunks; i++) {
+            expected += 1 + (i % 13);
+        }
+        for (int p = 1; p <= producers; p++) {
+            assertEquals(expected, counts[p]);
+        }
+        assertEquals(0, in.getQueuedBytes());
+    }
+
+    @Test
+    public void offerIsRejectedOnceCapacityIsReached() throws Exception {
+        QueueInputStream in = new QueueInputStream(10, 4);
+        List<Boolean> changes = new ArrayList<>();
+        in.setWritabilityListener(changes::add);
+
+        assertTrue(in.offer(new byte[6]));
+        assertTrue(in.isWritable());
+        assertTrue(in.offer(new byte[4]));
+        assertFalse(in.isWritable());
+        assertFalse(in.offer(new byte[1]));
+        assertEquals(10, in.getQueuedBytes());
+
+        // A chunk counts until it has been read completely
+        assertEquals(5, in.skip(5));
+        assertEquals(10, in.getQueuedBytes());
+        assertFalse(in.isWritable());
+        assertEquals(1, in.skip(1));
+        assertEquals(4, in.getQueuedBytes());
+        assertTrue(in.isWritable());
+        assertEquals(Arrays.asList(false, true), changes);
+    }
+
+    @Test
+    public void writabilityCallsAreSerializedAndEndWithTheCurrentState() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            QueueInputStream in = new QueueInputStream(64, 32);
+            AtomicInteger inListener = new AtomicInteger();
+            AtomicBoolean overlapped = new AtomicBoolean();
+            AtomicBoolean repeated = new AtomicBoolean();
+            AtomicReference<Boolean> last = new AtomicReference<>(true);
+            in.setWritabilityListener(writable -> {
+                if (inListener.incrementAndGet() != 1) {
+                    overlapped.set(true);
+                }
+                if (last.getAndSet(writable) == writable) {
+                    repeated.set(true);
+                }
+                if (!writable) {
+                    // Widens the window in which the consumer drains the queue during the call
+                    LockSupport.parkNanos(20000);
+                }
+                inListener.decrementAndGet();
+            });
+
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    in.offer(new byte[1 + (i % 7)]);
+                }
+            });
+            producer.start();
+            byte[] buffer = new byte[5];
+            while (producer.isAlive()) {
+                in.skip(in.available() > 0 ? buffer.length : 0);
+            }
+            producer.join();
+
+            assertFalse(overlapped.get());
+            assertFalse(repeated.get());
+            assertEquals(in.isWritable(), last.get());
+            in.skip(in.getQueuedBytes());
+            assertTrue(in.isWritable());
+            assertTrue(last.get());
+        }
+    }
+
+    @Test
+    public void oversizedChunkIsAcceptedWhenEmpty() throws Exception {
+        QueueInputStream in = new QueueInputStream(4);
+        assertTrue(in.offer(new byte[16]));
+        assertFalse(in.offer(new byte[1]));
+        assertEquals(16, in.skip(16));
+        assertTrue(in.offer(new byte[1]));
+    }
+
+    @Test
+    public void putWaitsForCapacity() throws Exception {
+        QueueInputStream in = new QueueInputStream(8, 0);
+        in.put(new byte[8]);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            try {
+                in.put(new byte[]{1, 2});
+                done.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        Thread.sleep(100);
+        assertFalse(done.get());
+
+        assertEquals(8, in.skip(8));
+        producer.join(10000);
+        assertTrue(done.get());
+        assertEquals(1, in.read());
+        assertEquals(2, in.read());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void putAfterCloseThrows() throws Exception {
+        QueueInputStream in = new QueueInputStream();
+        in.close();
+        in.put(new byte[]{1});
+    }
+
+    @Test
+    public void closeFailsWaitingPut() throws Exception {
+        QueueInputStream in = new QueueInputStream(4, 0);
+        in.put(new byte[4]);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread producer = new Thread(() -> {
+            try {
+                in.put(new byte[1]);
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        producer.start();
+        Thread.sleep(100);
+        in.close();
+        producer.join(10000);
+        assertTrue(failure.get() instanceof IllegalStateException);
+        assertFalse(in.offer(new byte[1]));
+    }
+
+    @Test
+    public void singleProducerOrderIsPreserved() throws Exception {
+        byte[] data = randomBytes(100000, 1);
+        QueueInputStream in = new QueueInputStream();
+        Thread producer = new Thread(() -> {
+            try {
+                for (int offset = 0; offset < data.length; offset += 997) {
+                    in.put(data, offset, Math.min(997, data.length - offset));
+                }
+                in.close();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        producer.start();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1500];
+        int read;
+        while ((read = in.read(buffer, 0, buffer.length)) >= 0) {
+            out.write(buffer, 0, read);
+        }
+        producer.join();
+        assertArrayEquals(data, out.toByteArray());
+    }
+}
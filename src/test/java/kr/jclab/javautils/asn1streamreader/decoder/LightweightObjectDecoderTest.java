@@ -0,0 +1,198 @@
+package kr.jclab.javautils.asn1streamreader.decoder;
+
+import kr.jclab.javautils.asn1streamreader.Asn1ReadResult;
+import kr.jclab.javautils.asn1streamreader.Asn1ReaderOptions;
+import kr.jclab.javautils.asn1streamreader.Asn1StreamReader;
+import kr.jclab.javautils.asn1streamreader.CallbackInputStream;
+import org.bouncycastle.asn1.ASN1Enumerated;
+import org.bouncycastle.asn1.ASN1GeneralizedTime;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1UTCTime;
+import org.bouncycastle.asn1.DERBMPString;
+import org.bouncycastle.asn1.DERIA5String;
+import org.bouncycastle.asn1.DERUTF8String;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LightweightObjectDecoderTest {
+    private static final LightweightObjectDecoder DECODER = new LightweightObjectDecoder();
+
+    private static Object decode(byte[] encoded) throws IOException {
+        Asn1StreamReader reader = new Asn1StreamReader(new ByteArrayInputStream(encoded), Asn1ReaderOptions.builder()
+                .decodeObject(false)
+                .build());
+        return DECODER.decode(reader.readObject(false));
+    }
+
+    /**
+     * Decodes from a zero-copy slice of the written buffer instead of an array owned by the result.
+     */
+    private static Object decodeSlice(byte[] encoded) throws IOException {
+        List<Asn1ReadResult> results = new ArrayList<>();
+        CallbackInputStream in = new CallbackInputStream();
+        new Asn1StreamReader(in, Asn1ReaderOptions.builder()
+                .zeroCopy(true)
+                .decodeObject(false)
+                .readCallback(results::add)
+                .build());
+        byte[] padded = new byte[encoded.length + 4];
+        System.arraycopy(encoded, 0, padded, 2, encoded.length);
+        in.write(padded, 2, encoded.length);
+        assertTrue(results.get(0).isRawSlice());
+        return DECODER.decode(results.get(0));
+    }
+
+    private static BigInteger toBigInteger(Object value) {
+        return (value instanceof Long) ? BigInteger.valueOf((Long) value) : (BigInteger) value;
+    }
+
+    @Test
+    public void integersMatchBouncyCastle() throws Exception {
+        BigInteger[] values = {
+                BigInteger.ZERO,
+                BigInteger.ONE,
+                BigInteger.valueOf(-1),
+                BigInteger.valueOf(127),
+                BigInteger.valueOf(128),
+                BigInteger.valueOf(-128),
+                BigInteger.valueOf(-129),
+                BigInteger.valueOf(Long.MAX_VALUE),
+                BigInteger.valueOf(Long.MIN_VALUE),
+                BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE),
+                BigInteger.valueOf(Long.MIN_VALUE).subtract(BigInteger.ONE),
+                BigInteger.ONE.shiftLeft(100).negate(),
+                new BigInteger("123456789012345678901234567890"),
+        };
+        for (BigInteger value : values) {
+            byte[] encoded = new ASN1Integer(value).getEncoded();
+            BigInteger expected = ASN1Integer.getInstance(encoded).getValue();
+            Object decoded = decode(encoded);
+            assertEquals(value.toString(), expected, toBigInteger(decoded));
+            // Values that fit in 8 content bytes are decoded to Long
+            assertEquals(value.toString(), encoded.length - 2 <= 8, decoded instanceof Long);
+        }
+        assertEquals(300L, decode(new ASN1Enumerated(300).getEncoded()));
+        // ENUMERATED -300
+        assertEquals(-300L, decode(new byte[]{0x0a, 0x02, (byte) 0xfe, (byte) 0xd4}));
+    }
+
+    @Test
+    public void objectIdentifiersMatchBouncyCastle() throws Exception {
+        String[] oids = {
+                "0.0",
+                "0.39",
+                "1.0",
+                "1.39.5",
+                "1.2.840.113549.1.1.11",
+                "2.5.4.3",
+                "2.47",
+                "2.48",
+                "2.999",
+                "2.999.3",
+                "1.2.9223372036854775807",
+                "1.2.9223372036854775808",
+                "1.3.6.1.4.1.123456789012345678901234567890",
+                "2.100000000000000000000",
+        };
+        for (String oid : oids) {
+            byte[] encoded = new ASN1ObjectIdentifier(oid).getEncoded();
+            String expected = ASN1ObjectIdentifier.getInstance(encoded).getId();
+            assertEquals(oid, expected, decode(encoded));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedObjectIdentifierIsRejected() throws Exception {
+        decode(new byte[]{0x06, 0x02, 0x2a, (byte) 0x86});
+    }
+
+    @Test
+    public void utcTimePivotsAtFifty() throws Exception {
+        String[] times = {
+                "490101000000Z",
+                "491231235959Z",
+                "500101000000Z",
+                "991231235959Z",
+                "000101000000Z",
+                "2001020304Z",
+                "500101000000+0130",
+                "491231235959-0800",
+        };
+        for (String time : times) {
+            byte[] encoded = new ASN1UTCTime(time).getEncoded();
+            OffsetDateTime decoded = (OffsetDateTime) decode(encoded);
+            long expected = ASN1UTCTime.getInstance(encoded).getAdjustedDate().getTime();
+            assertEquals(time, expected, decoded.toInstant().toEpochMilli());
+        }
+        assertEquals(2049, ((OffsetDateTime) decode(new ASN1UTCTime("490101000000Z").getEncoded())).getYear());
+        assertEquals(1950, ((OffsetDateTime) decode(new ASN1UTCTime("500101000000Z").getEncoded())).getYear());
+    }
+
+    @Test
+    public void generalizedTimesMatchBouncyCastle() throws Exception {
+        String[] zoned = {
+                "20200102030405Z",
+                "20200102030405.123Z",
+                "20200102030405.5Z",
+                "20200102030405+0130",
+                "20200102030405.25-0945",
+        };
+        for (String time : zoned) {
+            byte[] encoded = new ASN1GeneralizedTime(time).getEncoded();
+            OffsetDateTime decoded = (OffsetDateTime) decode(encoded);
+            long expected = ASN1GeneralizedTime.getInstance(encoded).getDate().getTime();
+            assertEquals(time, expected, decoded.toInstant().toEpochMilli());
+        }
+
+        // Without a zone the time is local, which BouncyCastle reads in the default time zone
+        String[] local = {
+                "20200102030405",
+                "20200102030405.123",
+        };
+        for (String time : local) {
+            byte[] encoded = new ASN1GeneralizedTime(time).getEncoded();
+            LocalDateTime decoded = (LocalDateTime) decode(encoded);
+            long expected = ASN1GeneralizedTime.getInstance(encoded).getDate().getTime();
+            assertEquals(time, expected, decoded.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+
+        OffsetDateTime fraction = (OffsetDateTime) decode(new ASN1GeneralizedTime("20200102030405.123456789Z").getEncoded());
+        assertEquals(123456789, fraction.getNano());
+    }
+
+    @Test(expected = IOException.class)
+    public void utcTimeWithoutZoneIsRejected() throws Exception {
+        byte[] content = "500101000000".getBytes("US-ASCII");
+        byte[] encoded = new byte[2 + content.length];
+        encoded[0] = 0x17;
+        encoded[1] = (byte) content.length;
+        System.arraycopy(content, 0, encoded, 2, content.length);
+        decode(encoded);
+    }
+
+    @Test
+    public void stringsFromOwnedArraysAndSlices() throws Exception {
+        byte[] utf8 = new DERUTF8String("한글 text").getEncoded();
+        assertEquals("한글 text", decode(utf8));
+        assertEquals("한글 text", decodeSlice(utf8));
+
+        byte[] bmp = new DERBMPString("BMP é").getEncoded();
+        assertEquals("BMP é", decode(bmp));
+        assertEquals("BMP é", decodeSlice(bmp));
+
+        byte[] ia5 = new DERIA5String("user@example.com").getEncoded();
+        assertEquals("user@example.com", decode(ia5));
+        assertEquals("user@example.com", decodeSlice(ia5));
+    }
+}
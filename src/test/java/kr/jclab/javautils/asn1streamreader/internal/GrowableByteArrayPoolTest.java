@@ -0,0 +1,71 @@
+package kr.jclab.javautils.asn1streamreader.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GrowableByteArrayPoolTest {
+    private static GrowableByteArray grown(int capacity) {
+        GrowableByteArray buffer = new GrowableByteArray(16);
+        buffer.ensureCapacity(capacity);
+        return buffer;
+    }
+
+    @Test
+    public void acquirePrefersTheSmallestClass() {
+        GrowableByteArrayPool pool = new GrowableByteArrayPool();
+        GrowableByteArray large = grown(1024 * 1024);
+        GrowableByteArray small = grown(16);
+        pool.release(large);
+        pool.release(small);
+        assertSame(small, pool.acquire());
+        assertSame(large, pool.acquire());
+        assertNotSame(large, pool.acquire());
+    }
+
+    @Test
+    public void resizeTradesForTheFittingClass() {
+        GrowableByteArrayPool pool = new GrowableByteArrayPool();
+        GrowableByteArray large = grown(1024 * 1024);
+        pool.release(large);
+
+        // A small element does not keep the large buffer
+        GrowableByteArray taken = pool.acquire();
+        assertSame(large, taken);
+        taken.append((byte) 0x05);
+        GrowableByteArray buffer = pool.resize(taken, 2);
+        assertNotSame(large, buffer);
+        assertEquals(16, buffer.capacity());
+        assertArrayEquals(new byte[]{0x05}, buffer.toByteArray());
+        assertSame(buffer, pool.resize(buffer, 2));
+        buffer.clear();
+
+        // A large element does, with the header bytes already read
+        buffer.append(new byte[]{0x04, (byte) 0x83, 0x0f, 0x42, 0x40}, 0, 5);
+        GrowableByteArray sized = pool.resize(buffer, 1000005);
+        assertSame(large, sized);
+        assertArrayEquals(new byte[]{0x04, (byte) 0x83, 0x0f, 0x42, 0x40}, sized.toByteArray());
+
+        // The small buffer went back to the pool, and the large one is handed back for a small element
+        assertSame(buffer, pool.acquire());
+        pool.release(buffer);
+        sized.clear();
+        sized.append((byte) 0x05);
+        assertSame(buffer, pool.resize(sized, 2));
+        assertArrayEquals(new byte[]{0x05}, buffer.toByteArray());
+        assertSame(sized, pool.acquire());
+    }
+
+    @Test
+    public void resizeDoesNotAllocate() {
+        GrowableByteArrayPool pool = new GrowableByteArrayPool();
+        GrowableByteArray buffer = pool.acquire();
+        assertSame(buffer, pool.resize(buffer, Integer.MAX_VALUE - 8));
+        assertEquals(16, buffer.capacity());
+
+        // Past the largest class only a bigger buffer is taken
+        GrowableByteArray large = grown(1024 * 1024);
+        pool.release(large);
+        assertSame(large, pool.resize(buffer, Integer.MAX_VALUE - 8));
+    }
+}
@@ -0,0 +1,214 @@
+package kr.jclab.javautils.asn1streamreader.reactive;
+
+import kr.jclab.javautils.asn1streamreader.Asn1ReadResult;
+import kr.jclab.javautils.asn1streamreader.Asn1ReaderOptions;
+import kr.jclab.javautils.asn1streamreader.Asn1StreamReader;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class Asn1PublishersTest {
+    // INTEGER 1, INTEGER 2, INTEGER 3
+    private static final byte[] INTEGERS = {0x02, 0x01, 0x01, 0x02, 0x01, 0x02, 0x02, 0x01, 0x03};
+
+    private static Asn1ReaderOptions options() {
+        return Asn1ReaderOptions.builder().decodeObject(false).build();
+    }
+
+    /**
+     * A source that emits a buffer only when asked to, and records what it was asked for.
+     */
+    private static final class ManualSource implements Publisher<ByteBuffer>, Subscription {
+        private Subscriber<? super ByteBuffer> subscriber;
+        private long requested = 0;
+        private boolean cancelled = false;
+
+        @Override
+        public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+            subscriber.onSubscribe(this);
+        }
+
+        @Override
+        public void request(long n) {
+            this.requested += n;
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+        }
+
+        void emit(byte[] data) {
+            assertTrue("emitted without demand", this.requested > 0);
+            this.requested--;
+            this.subscriber.onNext(ByteBuffer.wrap(data));
+        }
+    }
+
+    private static final class RecordingSubscriber implements Subscriber<Asn1ReadResult> {
+        final List<Long> offsets = new ArrayList<>();
+        Subscription subscription;
+        Throwable error;
+        boolean completed = false;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Asn1ReadResult result) {
+            assertFalse(this.completed || this.error != null);
+            this.offsets.add(result.getOffset());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+    }
+
+    @Test
+    public void byteBuffersFollowDemand() {
+        ManualSource source = new ManualSource();
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        Asn1Publishers.fromByteBuffers(source, options()).subscribe(subscriber);
+        assertEquals(0, source.requested);
+
+        subscriber.subscription.request(1);
+        assertEquals(1, source.requested);
+        source.emit(INTEGERS);
+        assertEquals(1, subscriber.offsets.size());
+
+        // The results already parsed meet the next demand without more input
+        subscriber.subscription.request(2);
+        assertEquals(3, subscriber.offsets.size());
+        assertEquals(0, source.requested);
+
+        subscriber.subscription.request(1);
+        assertEquals(1, source.requested);
+        // Half an element does not meet the demand, so another buffer is asked for
+        source.emit(new byte[]{0x02, 0x01});
+        assertEquals(1, source.requested);
+        source.emit(new byte[]{0x04});
+        assertEquals(4, subscriber.offsets.size());
+        assertEquals(Long.valueOf(9), subscriber.offsets.get(3));
+        assertEquals(0, source.requested);
+
+        source.subscriber.onComplete();
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void byteBuffersStopOnCancel() {
+        ManualSource source = new ManualSource();
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        Asn1Publishers.fromByteBuffers(source, options()).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        source.emit(INTEGERS);
+        assertEquals(1, subscriber.offsets.size());
+
+        subscriber.subscription.cancel();
+        assertTrue(source.cancelled);
+        subscriber.subscription.request(5);
+        assertEquals(1, subscriber.offsets.size());
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void byteBuffersFailOnTruncatedUpstream() {
+        ManualSource source = new ManualSource();
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        Asn1Publishers.fromByteBuffers(source, options()).subscribe(subscriber);
+        subscriber.subscription.request(5);
+        source.emit(new byte[]{0x02, 0x01, 0x01, 0x30, 0x03, 0x02});
+        source.subscriber.onComplete();
+
+        assertEquals(1, subscriber.offsets.size());
+        assertFalse(subscriber.completed);
+        assertTrue(subscriber.error instanceof EOFException);
+    }
+
+    @Test
+    public void byteBuffersRejectReadCallbackBeforeSubscribe() {
+        try {
+            Asn1Publishers.fromByteBuffers(new ManualSource(), Asn1ReaderOptions.builder().readCallback(result -> {
+            }).build());
+            fail("read callback accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static Publisher<Asn1ReadResult> fromReader(byte[] data) throws IOException {
+        return Asn1Publishers.fromReader(new Asn1StreamReader(new ByteArrayInputStream(data), options()), Runnable::run);
+    }
+
+    @Test
+    public void readerFollowsDemand() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        fromReader(INTEGERS).subscribe(subscriber);
+        assertTrue(subscriber.offsets.isEmpty());
+
+        subscriber.subscription.request(2);
+        assertEquals(2, subscriber.offsets.size());
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(5);
+        assertEquals(3, subscriber.offsets.size());
+        assertEquals(Long.valueOf(6), subscriber.offsets.get(2));
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void readerStopsOnCancel() throws Exception {
+        boolean[] closed = {false};
+        ByteArrayInputStream in = new ByteArrayInputStream(INTEGERS) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        Asn1Publishers.fromReader(new Asn1StreamReader(in, options()), Runnable::run).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        subscriber.subscription.cancel();
+        assertTrue(closed[0]);
+
+        subscriber.subscription.request(5);
+        assertEquals(1, subscriber.offsets.size());
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void readerFailsOnTruncatedInput() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        fromReader(new byte[]{0x02, 0x01, 0x01, 0x30, 0x03, 0x02}).subscribe(subscriber);
+        subscriber.subscription.request(5);
+
+        assertEquals(1, subscriber.offsets.size());
+        assertFalse(subscriber.completed);
+        assertTrue(subscriber.error instanceof EOFException);
+    }
+}